@@ -29,6 +29,7 @@ package com.squareup.okhttp.contrib.oauth;
  */
 public interface OAuth {
 
+    String BODY_HASH = "oauth_body_hash";
     String CALLBACK = "oauth_callback";
     String CALLBACK_CONFIRMED = "oauth_callback_confirmed";
     String CONSUMER_KEY = "oauth_consumer_key";
@@ -46,7 +47,10 @@ public interface OAuth {
     String CALLBACK_VALUE_OOB = "oob";
     String VERSION_VALUE_10 = "1.0";
     String SIGNATURE_METHOD_VALUE_HMAC_SHA1 = "HMAC-SHA1";
+    String SIGNATURE_METHOD_VALUE_HMAC_SHA256 = "HMAC-SHA256";
+    String SIGNATURE_METHOD_VALUE_HMAC_SHA512 = "HMAC-SHA512";
     String SIGNATURE_METHOD_VALUE_RSA_SHA1 = "RSA-SHA1";
+    String SIGNATURE_METHOD_VALUE_RSA_SHA256 = "RSA-SHA256";
     String SIGNATURE_METHOD_VALUE_PLAINTEXT = "PLAINTEXT";
 
 }
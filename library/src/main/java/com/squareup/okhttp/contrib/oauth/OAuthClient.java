@@ -29,6 +29,8 @@ import com.squareup.okhttp.OkHttpClient;
 import com.squareup.okhttp.Request;
 import com.squareup.okhttp.Response;
 
+import java.io.IOException;
+
 public interface OAuthClient {
 
     OkHttpClient okHttpClient();
@@ -41,9 +43,9 @@ public interface OAuthClient {
 
     Call newAccessToken(String verifier);
 
-    void obtainedRequestToken(Response response);
+    void obtainedRequestToken(Response response) throws IOException;
 
-    void obtainedAccessToken(Response response);
+    void obtainedAccessToken(Response response) throws IOException;
 
     Request sign(Request request);
 
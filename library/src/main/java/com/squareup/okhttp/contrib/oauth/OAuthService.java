@@ -24,14 +24,19 @@
 
 package com.squareup.okhttp.contrib.oauth;
 
+import com.squareup.okhttp.Request;
 import com.squareup.okhttp.contrib.oauth.request.AuthorizationStrategy;
 import com.squareup.okhttp.contrib.oauth.request.OAuthRequest;
 import com.squareup.okhttp.contrib.oauth.signing.NonceGenerator;
+import com.squareup.okhttp.contrib.oauth.signing.OAuthCredentials;
 import com.squareup.okhttp.contrib.oauth.signing.SignatureMethod;
+import com.squareup.okhttp.contrib.oauth.signing.SigningContext;
 import com.squareup.okhttp.contrib.oauth.signing.SigningException;
 import com.squareup.okhttp.contrib.oauth.signing.TimestampGenerator;
 import com.squareup.okhttp.contrib.oauth.token.Token;
 
+import java.util.List;
+
 /** Abstraction for the service contract between consumer and provider */
 public interface OAuthService {
 
@@ -47,4 +52,23 @@ public interface OAuthService {
     OAuthRequest authorizeRequest(OAuthRequest request, OAuthConsumer consumer, Token token)
             throws SigningException;
 
+    /** Returns a context for signing any number of requests of the given consumer and token */
+    SigningContext signingContext(OAuthConsumer consumer, Token token) throws SigningException;
+
+    OAuthRequest authorizeRequest(OAuthRequest request, SigningContext context)
+            throws SigningException;
+
+    /**
+     * Signs a batch of requests in parallel. Requests with the same consumer and token share one
+     * signing context. Requests without credentials, with {@link OAuthCredentials#NONE} or without
+     * a consumer are passed on unsigned.
+     *
+     * @param requests Requests to sign
+     * @param credentials Credentials of each request, in the same order
+     * @return Authorized requests, in the order of {@code requests}
+     * @throws SigningException if any request cannot be signed
+     */
+    List<Request> authorizeRequests(List<OAuthRequest> requests, List<OAuthCredentials> credentials)
+            throws SigningException;
+
 }
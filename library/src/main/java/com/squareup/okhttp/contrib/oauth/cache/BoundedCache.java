@@ -0,0 +1,99 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.cache;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+
+/**
+ * A size-bounded, concurrent cache. Reads never lock; once the cache is full, every insert evicts
+ * an arbitrary entry so that the cache stays close to its maximum size.
+ */
+public class BoundedCache<K, V> {
+
+    protected final ConcurrentMap<K, V> entries;
+    protected final int maxSize;
+
+    public BoundedCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0: " + maxSize);
+        }
+
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+    }
+
+    /** Returns the cached value or null */
+    public V get(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Caches the value unless another thread cached one first.
+     *
+     * @return The value now in the cache
+     */
+    public V putIfAbsent(K key, V value) {
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+
+        final V existing = entries.putIfAbsent(key, value);
+
+        return existing != null ? existing : value;
+    }
+
+    public V remove(K key) {
+        return entries.remove(key);
+    }
+
+    /** Removes the entries whose key matches the filter */
+    public void removeIf(Predicate<? super K> filter) {
+        entries.keySet().removeIf(filter);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /** Drops entries until there is room for one more. Iteration order of the map is arbitrary. */
+    protected void evict() {
+        final Iterator<K> keys = entries.keySet().iterator();
+        while (entries.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.cache;
+
+/**
+ * A wall clock that is read from a volatile field. A daemon thread refreshes the field every
+ * {@link #TICK_MILLIS}, so reading the time costs no system call; the value is at most one tick
+ * behind {@link System#currentTimeMillis()}.
+ *
+ * <p>The thread is started on the first read. {@link #stop()} ends it, e.g. when a web application
+ * is undeployed, so that it does not keep the class loader alive; a shutdown hook stops it otherwise.
+ */
+public final class CoarseClock {
+    public static final long TICK_MILLIS = 50;
+
+    private static volatile long now;
+    private static volatile boolean running;
+    /** Guarded by the class */
+    private static Thread ticker;
+    private static Thread shutdownHook;
+
+    private CoarseClock() {
+    }
+
+    /** Returns the current time in milliseconds, as of the last tick */
+    public static long currentTimeMillis() {
+        if (!running) {
+            start();
+        }
+
+        return now;
+    }
+
+    /** Stops the ticker thread; a later read starts it again */
+    public static synchronized void stop() {
+        running = false;
+        if (ticker != null) {
+            ticker.interrupt();
+            ticker = null;
+        }
+        if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException ignored) {
+                // shutting down already
+            }
+        }
+        shutdownHook = null;
+    }
+
+    private static synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        now = System.currentTimeMillis();
+        ticker = new Thread("OkHttp OAuth CoarseClock") {
+            @Override
+            public void run() {
+                while (!isInterrupted()) {
+                    try {
+                        Thread.sleep(TICK_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    now = System.currentTimeMillis();
+                }
+            }
+        };
+        ticker.setDaemon(true);
+        ticker.start();
+
+        shutdownHook = new Thread(CoarseClock::stop, "OkHttp OAuth CoarseClock shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        running = true;
+    }
+}
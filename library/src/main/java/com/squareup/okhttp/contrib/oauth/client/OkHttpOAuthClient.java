@@ -34,12 +34,17 @@ import com.squareup.okhttp.contrib.oauth.OAuthClient;
 import com.squareup.okhttp.contrib.oauth.OAuthConsumer;
 import com.squareup.okhttp.contrib.oauth.OAuthProvider;
 import com.squareup.okhttp.contrib.oauth.OAuthService;
-import com.squareup.okhttp.contrib.oauth.request.OAuthRequest;
-import com.squareup.okhttp.contrib.oauth.signing.SignatureMethod;
-import com.squareup.okhttp.contrib.oauth.signing.SigningException;
+import com.squareup.okhttp.contrib.oauth.request.ParameterList;
+import com.squareup.okhttp.contrib.oauth.signing.OAuthCredentials;
 import com.squareup.okhttp.contrib.oauth.signing.SigningInterceptor;
+import com.squareup.okhttp.contrib.oauth.signing.SkewLearningTimestampGenerator;
 import com.squareup.okhttp.contrib.oauth.token.DefaultToken;
 import com.squareup.okhttp.contrib.oauth.token.Token;
+import com.squareup.okhttp.contrib.oauth.token.TokenStore;
+
+import java.io.IOException;
+
+import okio.Buffer;
 
 public class OkHttpOAuthClient implements OAuthClient {
 
@@ -48,16 +53,48 @@ public class OkHttpOAuthClient implements OAuthClient {
     protected OAuthProvider provider;
     protected OAuthService service;
     protected SigningInterceptor interceptor;
-    protected SignatureMethod signatureMethod;
+    protected TokenStore tokenStore;
+    protected String userId;
+    /** Consumer and token that requests are signed with; the token is null until obtained */
+    protected volatile OAuthCredentials credentials;
 
     public OkHttpOAuthClient(OkHttpClient okHttpClient, OAuthConsumer consumer, OAuthProvider provider, OAuthService service) {
         this.okHttpClient = okHttpClient;
         this.consumer = consumer;
         this.provider = provider;
         this.service = service;
-        this.interceptor = new SigningInterceptor();
+        this.interceptor = new SigningInterceptor(service);
+        this.credentials = new OAuthCredentials(consumer, null);
+
+        final boolean learnsSkew = service.timestampGenerator() instanceof SkewLearningTimestampGenerator;
+        if (learnsSkew && okHttpClient.getAuthenticator() != null) {
+            throw new IllegalStateException("OkHttpClient has an Authenticator already, the"
+                    + " SkewLearningTimestampGenerator cannot retry requests refused for their timestamp");
+        }
 
         okHttpClient.networkInterceptors().add(interceptor);
+        if (learnsSkew) {
+            final SkewLearningTimestampGenerator timestamps =
+                    (SkewLearningTimestampGenerator) service.timestampGenerator();
+            okHttpClient.networkInterceptors().add(timestamps.interceptor());
+            okHttpClient.setAuthenticator(timestamps.authenticator());
+        }
+    }
+
+    /**
+     * Creates a client that keeps the access token of the user in the token store. A token stored
+     * already is used right away.
+     */
+    public OkHttpOAuthClient(OkHttpClient okHttpClient, OAuthConsumer consumer, OAuthProvider provider,
+            OAuthService service, TokenStore tokenStore, String userId) {
+        this(okHttpClient, consumer, provider, service);
+        this.tokenStore = tokenStore;
+        this.userId = userId;
+
+        final Token stored = tokenStore.get(userId);
+        if (stored != null) {
+            this.credentials = new OAuthCredentials(consumer, stored);
+        }
     }
 
     @Override
@@ -75,77 +112,85 @@ public class OkHttpOAuthClient implements OAuthClient {
         return provider;
     }
 
+    /**
+     * Returns a call for a request token. The request is signed by the interceptor once a
+     * connection is acquired, see {@link SigningInterceptor}.
+     */
     @Override
     public Call newRequestToken(String callback) {
-        Request req = new Request.Builder()
+        final Request req = new Request.Builder()
                 .url(provider.requestTokenUrl())
-                .method(provider.requestTokenVerb(), new FormEncodingBuilder().build())
-                .header("X-OKHttp-OAuth-Authorized", "yes")
+                .method(provider.requestTokenVerb(), new FormEncodingBuilder()
+                        .add(OAuth.CALLBACK, callback)
+                        .build())
+                .tag(new OAuthCredentials(consumer, null).stamped())
                 .build();
 
-        OAuthRequest orq = new OAuthRequest(req);
-        try {
-            OAuthRequest authReq = service.authorizeRequest(orq, consumer, null);
-
-            return okHttpClient.newCall(authReq.authorizedRequest());
-        } catch (SigningException e) {
-            e.printStackTrace(); // TODO what to do now?!?
-        }
-
-        return null;
+        return okHttpClient.newCall(req);
     }
 
+    /** Returns a call for an access token, signed late with the request token */
     @Override
     public Call newAccessToken(String verifier) {
-        Request req = new Request.Builder()
-                .url(provider.requestTokenUrl())
-                .method(
-                        provider.requestTokenVerb(),
-                        new FormEncodingBuilder()
+        final Request req = new Request.Builder()
+                .url(provider.accessTokenUrl())
+                .method(provider.accessTokenVerb(), new FormEncodingBuilder()
                         .add(OAuth.VERIFIER, verifier)
-                        .build()
-                    )
+                        .build())
+                .tag(credentials.stamped())
                 .build();
 
-        OAuthRequest orq = new OAuthRequest(req);
-        try {
-            OAuthRequest authReq = service.authorizeRequest(orq, consumer, null);
-
-            return okHttpClient.newCall(authReq.authorizedRequest());
-        } catch (SigningException e) {
-            e.printStackTrace(); // TODO what to do now?!?
-        }
-
-        return null;
+        return okHttpClient.newCall(req);
     }
 
+    /** Reads the request token from the response; following requests are signed with it */
     @Override
-    public void obtainedRequestToken(Response response) {
-        // TODO: extract request token from response
-        Token requestToken = new DefaultToken(response.message(), "");
-
-        try {
-            signatureMethod.withKey(consumer.secret(), requestToken.secret());
-        } catch (SigningException e) {
-            e.printStackTrace(); // TODO what to do now?!?
-        }
+    public void obtainedRequestToken(Response response) throws IOException {
+        credentials = new OAuthCredentials(consumer, tokenOf(response));
     }
 
+    /**
+     * Reads the access token from the response; following requests are signed with it. The token
+     * is kept in the token store, if there is one.
+     */
     @Override
-    public void obtainedAccessToken(Response response) {
-        // TODO: extract access token from response
-        Token accessToken = new DefaultToken(response.message(), "");
-
-        try {
-            signatureMethod.withKey(consumer.secret(), accessToken.secret());
-        } catch (SigningException e) {
-            e.printStackTrace(); // TODO what to do now?!?
+    public void obtainedAccessToken(Response response) throws IOException {
+        final Token accessToken = tokenOf(response);
+        if (tokenStore != null) {
+            tokenStore.put(userId, accessToken);
         }
+        credentials = new OAuthCredentials(consumer, accessToken);
     }
 
+    /** Tags the request to be signed late with the consumer and the current token */
     @Override
     public Request sign(Request request) {
-        return null;
+        return request.newBuilder()
+                .tag(credentials.stamped())
+                .build();
+    }
+
+    /** Parses oauth_token and oauth_token_secret of a form-encoded token response */
+    protected static Token tokenOf(Response response) throws IOException {
+        if (!response.isSuccessful()) {
+            throw new IOException("Token request failed: " + response.code() + " " + response.message());
+        }
+
+        final ParameterList params = ParameterList.ofForm(new Buffer().write(response.body().bytes()));
+        String value = null;
+        String secret = null;
+        for (int i = 0; i < params.size(); i++) {
+            if (OAuth.TOKEN.equals(params.name(i))) {
+                value = params.value(i);
+            } else if (OAuth.TOKEN_SECRET.equals(params.name(i))) {
+                secret = params.value(i);
+            }
+        }
+        if (value == null) {
+            throw new IOException("No " + OAuth.TOKEN + " in token response");
+        }
+
+        return new DefaultToken(value, secret);
     }
 
 }
@@ -0,0 +1,213 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.consumer;
+
+import com.squareup.okhttp.contrib.oauth.encoder.PercentEncoder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of many consumers, grouped by tenant. Tenant names are interned, a replacing consumer
+ * reuses the key instance of the one it replaces, and lookup by consumer key is a hash lookup.
+ * Secrets and pre-derived HMAC key prefixes are kept in direct buffers outside the heap, so they
+ * neither bloat the heap nor show up in heap dumps, and are zeroed when a consumer is unregistered
+ * or replaced. Secrets passed as UTF-8 bytes, see {@link #register(String, String, byte[])}, are
+ * copied to the direct buffer without any intermediate {@link String}.
+ *
+ * <p>Off-heap memory is allocated in chunks; freed slots are reused by consumers of the same size.
+ * Note that JCE keys, e.g. in an initialized {@code Mac}, are copied into the heap regardless;
+ * such caches are notified through {@link RegisteredConsumer#onRelease(Runnable)}.
+ */
+public class ConsumerRegistry {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    protected final ConcurrentHashMap<String, RegisteredConsumer> consumers = new ConcurrentHashMap<>();
+    protected final ConcurrentHashMap<String, Tenant> tenants = new ConcurrentHashMap<>();
+
+    /** Guarded by this */
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final Map<Integer, Deque<Slot>> freeSlots = new HashMap<>();
+    private ByteBuffer chunk;
+
+    /**
+     * Registers a consumer, replacing and zeroing any consumer registered with the same key.
+     *
+     * @return The registered consumer
+     */
+    public RegisteredConsumer register(String tenant, String key, String secret) {
+        final byte[] secretBytes = secret.getBytes(UTF_8);
+        try {
+            return register(tenant, key, secretBytes);
+        } finally {
+            Arrays.fill(secretBytes, (byte) 0);
+        }
+    }
+
+    /**
+     * Registers a consumer, replacing and zeroing any consumer registered with the same key. The
+     * secret is copied and encoded straight into off-heap memory; the caller may zero it afterwards.
+     *
+     * @param secret Consumer secret, UTF-8 encoded
+     * @return The registered consumer
+     */
+    public RegisteredConsumer register(String tenant, String key, byte[] secret) {
+        final Tenant owner = tenants.computeIfAbsent(tenant, Tenant::new);
+        final String reusedKey = reusedKey(key);
+
+        final int derivedKeyLength = PercentEncoder.encodedLength(secret) + 1;
+        final RegisteredConsumer consumer;
+        synchronized (this) {
+            final Slot slot = allocate(secret.length + derivedKeyLength);
+            final ByteBuffer region = slot.region.duplicate();
+            region.position(slot.offset);
+            region.put(secret);
+            PercentEncoder.encode(secret, region).put((byte) '&');
+            consumer = new RegisteredConsumer(owner.name, reusedKey, slot.region, slot.offset,
+                    secret.length, derivedKeyLength);
+        }
+
+        owner.consumers.incrementAndGet();
+        owner.bytes.addAndGet(consumer.size());
+        final RegisteredConsumer replaced = consumers.put(reusedKey, consumer);
+        if (replaced != null) {
+            release(replaced);
+        }
+
+        return consumer;
+    }
+
+    /** Returns the consumer registered with the key, or null */
+    public RegisteredConsumer get(String key) {
+        return consumers.get(key);
+    }
+
+    /** Unregisters the consumer and zeroes its key material; returns true if it was registered */
+    public boolean unregister(String key) {
+        final RegisteredConsumer consumer = consumers.remove(key);
+        if (consumer == null) {
+            return false;
+        }
+
+        release(consumer);
+        return true;
+    }
+
+    public int size() {
+        return consumers.size();
+    }
+
+    /** Returns the off-heap bytes held by the consumers of the tenant */
+    public long memoryUsage(String tenant) {
+        final Tenant owner = tenants.get(tenant);
+
+        return owner != null ? owner.bytes.get() : 0;
+    }
+
+    /** Returns the number of consumers of the tenant */
+    public int consumerCount(String tenant) {
+        final Tenant owner = tenants.get(tenant);
+
+        return owner != null ? owner.consumers.get() : 0;
+    }
+
+    /** Returns the off-heap bytes reserved by the registry, used or free */
+    public synchronized long reservedMemory() {
+        long reserved = 0;
+        for (ByteBuffer region : chunks) {
+            reserved += region.capacity();
+        }
+
+        return reserved;
+    }
+
+    /** Returns the key instance of the consumer registered with the key, if any */
+    private String reusedKey(String key) {
+        final RegisteredConsumer existing = consumers.get(key);
+
+        return existing != null ? existing.key() : key;
+    }
+
+    private void release(RegisteredConsumer consumer) {
+        final Tenant owner = tenants.get(consumer.tenant());
+        owner.consumers.decrementAndGet();
+        owner.bytes.addAndGet(-consumer.size());
+
+        synchronized (this) {
+            consumer.destroy();
+            freeSlots.computeIfAbsent(consumer.size(), size -> new ArrayDeque<>())
+                    .push(new Slot(consumer.region, consumer.offset));
+        }
+    }
+
+    /** Guarded by this */
+    private Slot allocate(int size) {
+        final Deque<Slot> free = freeSlots.get(size);
+        if (free != null && !free.isEmpty()) {
+            return free.pop();
+        }
+
+        if (chunk == null || chunk.remaining() < size) {
+            chunk = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, size));
+            chunks.add(chunk);
+        }
+        final Slot slot = new Slot(chunk, chunk.position());
+        chunk.position(chunk.position() + size);
+
+        return slot;
+    }
+
+    private static final class Slot {
+        final ByteBuffer region;
+        final int offset;
+
+        Slot(ByteBuffer region, int offset) {
+            this.region = region;
+            this.offset = offset;
+        }
+    }
+
+    /** Interned tenant name and its usage */
+    protected static final class Tenant {
+        final String name;
+        final AtomicInteger consumers = new AtomicInteger();
+        final AtomicLong bytes = new AtomicLong();
+
+        Tenant(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.consumer;
+
+import com.squareup.okhttp.contrib.oauth.OAuthConsumer;
+import com.squareup.okhttp.contrib.oauth.encoder.PercentEncoder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A consumer of a {@link ConsumerRegistry}. The secret and the pre-derived HMAC key prefix live
+ * off-heap, in the registry's region; {@link #secret()} decodes a copy on every call, so callers
+ * should derive their signing context once. Consumers are equal only to themselves, so they can
+ * key caches of derived keys.
+ */
+public final class RegisteredConsumer implements OAuthConsumer {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final String tenant;
+    private final String key;
+    final ByteBuffer region;
+    final int offset;
+    final int secretLength;
+    final int keyLength;
+    private final Set<Runnable> releaseHooks = ConcurrentHashMap.newKeySet();
+    private volatile boolean destroyed;
+
+    RegisteredConsumer(String tenant, String key, ByteBuffer region, int offset, int secretLength, int keyLength) {
+        this.tenant = tenant;
+        this.key = key;
+        this.region = region;
+        this.offset = offset;
+        this.secretLength = secretLength;
+        this.keyLength = keyLength;
+    }
+
+    public String tenant() {
+        return tenant;
+    }
+
+    @Override
+    public String key() {
+        return key;
+    }
+
+    @Override
+    public String secret() {
+        final byte[] secret = copy(offset, secretLength);
+        try {
+            return new String(secret, UTF_8);
+        } finally {
+            Arrays.fill(secret, (byte) 0);
+        }
+    }
+
+    /**
+     * Returns the HMAC key for the token secret: the pre-derived prefix, the percent-encoded
+     * consumer secret and {@code '&'}, followed by the percent-encoded token secret. The key is
+     * built in one array that the caller should zero once the key is initialized.
+     */
+    public byte[] derivedKey(String tokenSecret) {
+        final byte[] secret = tokenSecret != null ? tokenSecret.getBytes(UTF_8) : new byte[0];
+        final byte[] key = new byte[keyLength + PercentEncoder.encodedLength(secret)];
+        try {
+            final ByteBuffer prefix = region.duplicate();
+            prefix.limit(offset + secretLength + keyLength).position(offset + secretLength);
+            PercentEncoder.encode(secret, ByteBuffer.wrap(key).put(prefix));
+        } finally {
+            Arrays.fill(secret, (byte) 0);
+        }
+        if (destroyed) {
+            Arrays.fill(key, (byte) 0);
+            throw new IllegalStateException("Consumer was unregistered: " + this.key);
+        }
+
+        return key;
+    }
+
+    /** Returns the off-heap bytes held by this consumer */
+    public int size() {
+        return secretLength + keyLength;
+    }
+
+    /** Returns true once the consumer was unregistered and its key material zeroed */
+    public boolean isDestroyed() {
+        return destroyed;
+    }
+
+    /**
+     * Runs the hook once the consumer is unregistered, e.g. to drop keys derived from it; runs it
+     * right away if it is unregistered already. Equal hooks are registered once.
+     */
+    public void onRelease(Runnable hook) {
+        releaseHooks.add(hook);
+        if (destroyed && releaseHooks.remove(hook)) {
+            hook.run();
+        }
+    }
+
+    void destroy() {
+        destroyed = true;
+        for (int i = offset, end = offset + size(); i < end; i++) {
+            region.put(i, (byte) 0);
+        }
+        for (Runnable hook : releaseHooks) {
+            if (releaseHooks.remove(hook)) {
+                hook.run();
+            }
+        }
+    }
+
+    private byte[] copy(int from, int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = region.get(from + i);
+        }
+        if (destroyed) {
+            Arrays.fill(bytes, (byte) 0);
+            throw new IllegalStateException("Consumer was unregistered: " + key);
+        }
+
+        return bytes;
+    }
+}
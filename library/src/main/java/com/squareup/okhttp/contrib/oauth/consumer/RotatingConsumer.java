@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.consumer;
+
+import com.squareup.okhttp.contrib.oauth.OAuthConsumer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A consumer whose secret can be rotated while requests are being signed. Key and secret are held
+ * in an immutable snapshot that {@link #rotate(String, long, TimeUnit)} replaces with one atomic
+ * swap; readers never lock. Signing contexts capture a snapshot, see {@link #snapshotOf}: requests
+ * being signed finish on the old secret, later ones pick up the new secret. Reading {@link #key()}
+ * and {@link #secret()} one after the other may straddle a rotation; read both from one
+ * {@link #current()} snapshot instead.
+ *
+ * <p>For providers that accept both secrets for a while, the previous snapshot stays available
+ * from {@link #previous()} during an overlap window, e.g. to re-sign a request the provider
+ * rejected because it has not seen the new secret yet.
+ */
+public class RotatingConsumer implements OAuthConsumer {
+
+    private final AtomicReference<Generation> generation;
+
+    public RotatingConsumer(String key, String secret) {
+        this.generation = new AtomicReference<>(
+                new Generation(new DefaultOAuthConsumer(key, secret), null, 0));
+    }
+
+    /** Returns the current snapshot of key and secret */
+    public OAuthConsumer current() {
+        return generation.get().current;
+    }
+
+    /** Returns the current snapshot of a rotating consumer, or the consumer itself */
+    public static OAuthConsumer snapshotOf(OAuthConsumer consumer) {
+        return consumer instanceof RotatingConsumer ? ((RotatingConsumer) consumer).current() : consumer;
+    }
+
+    /** Returns the previous snapshot while its overlap window lasts, or null */
+    public OAuthConsumer previous() {
+        final Generation current = generation.get();
+
+        return current.previous != null && System.currentTimeMillis() < current.previousUntilMillis
+                ? current.previous
+                : null;
+    }
+
+    /** Replaces the secret; the previous secret is dropped at once */
+    public void rotate(String secret) {
+        rotate(secret, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replaces the secret.
+     *
+     * @param secret New secret
+     * @param overlap How long the previous secret stays available from {@link #previous()}
+     * @param unit Unit of {@code overlap}
+     */
+    public void rotate(String secret, long overlap, TimeUnit unit) {
+        final long previousUntil = System.currentTimeMillis() + unit.toMillis(overlap);
+        Generation current;
+        Generation next;
+        do {
+            current = generation.get();
+            next = new Generation(new DefaultOAuthConsumer(current.current.key(), secret),
+                    overlap > 0 ? current.current : null, previousUntil);
+        } while (!generation.compareAndSet(current, next));
+    }
+
+    @Override
+    public String key() {
+        return current().key();
+    }
+
+    @Override
+    public String secret() {
+        return current().secret();
+    }
+
+    private static final class Generation {
+        final OAuthConsumer current;
+        final OAuthConsumer previous;
+        final long previousUntilMillis;
+
+        Generation(OAuthConsumer current, OAuthConsumer previous, long previousUntilMillis) {
+            this.current = current;
+            this.previous = previous;
+            this.previousUntilMillis = previousUntilMillis;
+        }
+    }
+}
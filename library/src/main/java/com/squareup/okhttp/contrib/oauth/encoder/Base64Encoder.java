@@ -24,12 +24,65 @@
 
 package com.squareup.okhttp.contrib.oauth.encoder;
 
+import java.io.IOException;
+
+import okio.Buffer;
+import okio.BufferedSink;
 import okio.ByteString;
 
 public class Base64Encoder {
+    private static final byte[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes();
 
     public static String encode(String input) {
         return ByteString.of(input.getBytes()).base64();
     }
 
+    /**
+     * Writes the base64 encoding of the data to the sink, percent-encoding the characters
+     * {@code '+'}, {@code '/'} and {@code '='} on the fly. The output is the same as
+     * {@code PercentEncoder.encode(ByteString.of(data).base64())}.
+     */
+    public static void encodePercentEncoded(byte[] data, BufferedSink sink) throws IOException {
+        final Buffer buffer = sink.buffer();
+        final int end = data.length - data.length % 3;
+        for (int i = 0; i < end; i += 3) {
+            final int bits = (data[i] & 0xff) << 16 | (data[i + 1] & 0xff) << 8 | (data[i + 2] & 0xff);
+            writeChar(buffer, bits >> 18);
+            writeChar(buffer, bits >> 12);
+            writeChar(buffer, bits >> 6);
+            writeChar(buffer, bits);
+        }
+
+        switch (data.length - end) {
+            case 1: {
+                final int bits = (data[end] & 0xff) << 16;
+                writeChar(buffer, bits >> 18);
+                writeChar(buffer, bits >> 12);
+                buffer.writeUtf8("%3D%3D");
+                break;
+            }
+            case 2: {
+                final int bits = (data[end] & 0xff) << 16 | (data[end + 1] & 0xff) << 8;
+                writeChar(buffer, bits >> 18);
+                writeChar(buffer, bits >> 12);
+                writeChar(buffer, bits >> 6);
+                buffer.writeUtf8("%3D");
+                break;
+            }
+        }
+        sink.emitCompleteSegments();
+    }
+
+    private static void writeChar(Buffer buffer, int sextet) {
+        final byte c = ALPHABET[sextet & 0x3f];
+        if (c == '+') {
+            buffer.writeUtf8("%2B");
+        } else if (c == '/') {
+            buffer.writeUtf8("%2F");
+        } else {
+            buffer.writeByte(c);
+        }
+    }
+
 }
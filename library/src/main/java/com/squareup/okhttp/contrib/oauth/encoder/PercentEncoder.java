@@ -24,25 +24,222 @@
 
 package com.squareup.okhttp.contrib.oauth.encoder;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLDecoder;
-import java.net.URLEncoder;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+
+/**
+ * Percent-encoding as required by OAuth, RFC 5849 section 3.6: all characters except the RFC 3986
+ * unreserved set {@code ALPHA / DIGIT / "-" / "." / "_" / "~"} are encoded as UTF-8 octets,
+ * {@code %XX} with upper-case hex digits. In particular, a space is encoded as {@code %20}.
+ */
 public class PercentEncoder {
+    private static final byte[] HEX_DIGITS =
+            { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F' };
 
+    /** Replaces unpaired surrogates, as {@link String#getBytes} and okio's writeUtf8 do */
+    private static final int REPLACEMENT_BYTE = '?';
+
+    /** Lookup table of unreserved ASCII characters, these are never encoded */
+    private static final boolean[] UNRESERVED = new boolean[128];
+    static {
+        for (char c = 'a'; c <= 'z'; c++) UNRESERVED[c] = true;
+        for (char c = 'A'; c <= 'Z'; c++) UNRESERVED[c] = true;
+        for (char c = '0'; c <= '9'; c++) UNRESERVED[c] = true;
+        UNRESERVED['-'] = true;
+        UNRESERVED['.'] = true;
+        UNRESERVED['_'] = true;
+        UNRESERVED['~'] = true;
+    }
+
+    /** Returns the encoded string, or the input instance if nothing needs to be encoded */
     public static String encode(String input) {
-        try {
-            return URLEncoder.encode(input, "UTF-8");
-        } catch (UnsupportedEncodingException e) { // this simply MUST NOT fail
+        final int start = firstReserved(input);
+        if (start == input.length()) {
             return input;
         }
+
+        final Buffer buffer = new Buffer();
+        buffer.writeUtf8(input, 0, start);
+        encode(input, start, buffer);
+
+        return buffer.readUtf8();
     }
 
+    /** Writes the encoded string to the buffer */
+    public static Buffer encode(String input, Buffer sink) {
+        encode(input, 0, sink);
+
+        return sink;
+    }
+
+    /** Writes the encoded string to the sink */
+    public static void encode(String input, BufferedSink sink) throws IOException {
+        encode(input, 0, sink.buffer());
+        sink.emitCompleteSegments();
+    }
+
+    /** Writes the encoded bytes to the sink, e.g. to encode a value that is encoded already */
+    public static void encode(ByteString input, BufferedSink sink) throws IOException {
+        final Buffer buffer = sink.buffer();
+        for (int i = 0, len = input.size(); i < len; i++) {
+            final int b = input.getByte(i) & 0xff;
+            if (isUnreserved(b)) {
+                buffer.writeByte(b);
+            } else {
+                writeEscaped(buffer, b);
+            }
+        }
+        sink.emitCompleteSegments();
+    }
+
+    /** Writes the byte to the buffer, escaped unless it is unreserved */
+    public static Buffer encodeByte(int b, Buffer sink) {
+        if (isUnreserved(b)) {
+            sink.writeByte(b);
+        } else {
+            writeEscaped(sink, b);
+        }
+
+        return sink;
+    }
+
+    /** Returns the length of the encoded bytes, see {@link #encode(byte[], ByteBuffer)} */
+    public static int encodedLength(byte[] input) {
+        int length = 0;
+        for (byte b : input) {
+            length += isUnreserved(b & 0xff) ? 1 : 3;
+        }
+
+        return length;
+    }
+
+    /**
+     * Writes the encoded bytes to the buffer, at its position; no intermediate copy is made, e.g.
+     * to encode key material into an array or a direct buffer that is zeroed later.
+     */
+    public static ByteBuffer encode(byte[] input, ByteBuffer sink) {
+        for (byte b : input) {
+            final int c = b & 0xff;
+            if (isUnreserved(c)) {
+                sink.put(b);
+            } else {
+                sink.put((byte) '%').put(HEX_DIGITS[(c >> 4) & 0xf]).put(HEX_DIGITS[c & 0xf]);
+            }
+        }
+
+        return sink;
+    }
+
+    /** Returns the decoded string, or the input instance if it contains no escape sequences */
     public static String decode(String input) {
-        try {
-            return URLDecoder.decode(input, "UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            return input; // this simply MUST NOT fail
+        final int start = input.indexOf('%');
+        if (start == -1) {
+            return input;
+        }
+
+        final Buffer buffer = new Buffer();
+        buffer.writeUtf8(input, 0, start);
+        decode(input, start, buffer);
+
+        return buffer.readUtf8();
+    }
+
+    /** Writes the decoded bytes to the buffer */
+    public static Buffer decode(String input, Buffer sink) {
+        decode(input, 0, sink);
+
+        return sink;
+    }
+
+    /** Returns true if the character is never encoded */
+    public static boolean isUnreserved(int c) {
+        return c < 128 && UNRESERVED[c];
+    }
+
+    private static int firstReserved(String input) {
+        int i = 0;
+        for (int len = input.length(); i < len; i++) {
+            if (!isUnreserved(input.charAt(i))) {
+                break;
+            }
+        }
+
+        return i;
+    }
+
+    private static void encode(String input, int pos, Buffer sink) {
+        final int len = input.length();
+        while (pos < len) {
+            // copy runs of unreserved characters in bulk
+            int runEnd = pos;
+            while (runEnd < len && isUnreserved(input.charAt(runEnd))) {
+                runEnd++;
+            }
+            if (runEnd > pos) {
+                sink.writeUtf8(input, pos, runEnd);
+                pos = runEnd;
+                if (pos == len) {
+                    break;
+                }
+            }
+
+            int codePoint = input.codePointAt(pos);
+            pos += Character.charCount(codePoint);
+            if (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+                // unpaired surrogate, encoded as '?' like URLEncoder and String.getBytes() do
+                codePoint = REPLACEMENT_BYTE;
+            }
+            if (codePoint < 0x80) {
+                writeEscaped(sink, codePoint);
+            } else if (codePoint < 0x800) {
+                writeEscaped(sink, 0xc0 | (codePoint >> 6));
+                writeEscaped(sink, 0x80 | (codePoint & 0x3f));
+            } else if (codePoint < 0x10000) {
+                writeEscaped(sink, 0xe0 | (codePoint >> 12));
+                writeEscaped(sink, 0x80 | ((codePoint >> 6) & 0x3f));
+                writeEscaped(sink, 0x80 | (codePoint & 0x3f));
+            } else {
+                writeEscaped(sink, 0xf0 | (codePoint >> 18));
+                writeEscaped(sink, 0x80 | ((codePoint >> 12) & 0x3f));
+                writeEscaped(sink, 0x80 | ((codePoint >> 6) & 0x3f));
+                writeEscaped(sink, 0x80 | (codePoint & 0x3f));
+            }
+        }
+    }
+
+    private static void writeEscaped(Buffer sink, int b) {
+        sink.writeByte('%')
+                .writeByte(HEX_DIGITS[(b >> 4) & 0xf])
+                .writeByte(HEX_DIGITS[b & 0xf]);
+    }
+
+    private static void decode(String input, int pos, Buffer sink) {
+        final int len = input.length();
+        while (pos < len) {
+            final int escape = input.indexOf('%', pos);
+            final int runEnd = escape == -1 ? len : escape;
+            if (runEnd > pos) {
+                sink.writeUtf8(input, pos, runEnd);
+                pos = runEnd;
+                if (pos == len) {
+                    break;
+                }
+            }
+
+            if (pos + 2 >= len) {
+                throw new IllegalArgumentException("Incomplete escape sequence at " + pos + ": " + input);
+            }
+            final int hi = Character.digit(input.charAt(pos + 1), 16);
+            final int lo = Character.digit(input.charAt(pos + 2), 16);
+            if (hi == -1 || lo == -1) {
+                throw new IllegalArgumentException("Invalid escape sequence at " + pos + ": " + input);
+            }
+            sink.writeByte((hi << 4) | lo);
+            pos += 3;
         }
     }
 
@@ -27,4 +27,12 @@ package com.squareup.okhttp.contrib.oauth.request;
 public interface AuthorizationStrategy {
 
     void applyTo(OAuthRequest request);
+
+    /**
+     * Returns true if the authorized request is sent with a form-encoded body. Such requests are
+     * not signed with oauth_body_hash, which the Request Body Hash extension forbids for forms.
+     */
+    default boolean sendsFormBody(OAuthRequest request) {
+        return request.hasFormBody();
+    }
 }
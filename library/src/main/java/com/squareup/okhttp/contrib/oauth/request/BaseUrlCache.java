@@ -0,0 +1,120 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.request;
+
+import com.squareup.okhttp.HttpUrl;
+import com.squareup.okhttp.contrib.oauth.cache.BoundedCache;
+import com.squareup.okhttp.contrib.oauth.encoder.PercentEncoder;
+
+import java.util.Locale;
+
+import okio.ByteString;
+
+/**
+ * Caches the percent-encoded base string URI, RFC 5849 section 3.4.1.2, per endpoint. Traffic
+ * usually hits few distinct endpoints many times, so normalizing and encoding the URL becomes a
+ * cache hit.
+ */
+public class BaseUrlCache {
+    private static final int DEFAULT_SIZE = 1024;
+
+    protected final BoundedCache<Endpoint, ByteString> cache;
+
+    public BaseUrlCache() {
+        this(DEFAULT_SIZE);
+    }
+
+    /** @param maxSize Maximum number of endpoints kept */
+    public BaseUrlCache(int maxSize) {
+        this.cache = new BoundedCache<>(maxSize);
+    }
+
+    /** Returns the percent-encoded base string URI of the url */
+    public ByteString encodedBaseUrl(HttpUrl url) {
+        final Endpoint endpoint = new Endpoint(url.scheme(), url.host(), url.port(), url.encodedPath());
+        ByteString encoded = cache.get(endpoint);
+        if (encoded == null) {
+            encoded = cache.putIfAbsent(endpoint, ByteString.encodeUtf8(PercentEncoder.encode(baseUrl(url))));
+        }
+
+        return encoded;
+    }
+
+    /**
+     * Returns the base string URI: scheme and host in lower case, the port only if it is not the
+     * default port of the scheme, and the path; no user info, query or fragment.
+     */
+    public static String baseUrl(HttpUrl url) {
+        final StringBuilder result = new StringBuilder()
+                .append(url.scheme().toLowerCase(Locale.ROOT))
+                .append("://");
+
+        final String host = url.host().toLowerCase(Locale.ROOT);
+        if (host.indexOf(':') != -1) {
+            result.append('[').append(host).append(']'); // IPv6 literal
+        } else {
+            result.append(host);
+        }
+
+        if (url.port() != HttpUrl.defaultPort(url.scheme())) {
+            result.append(':').append(url.port());
+        }
+
+        return result.append(url.encodedPath()).toString();
+    }
+
+    /** Cache key: scheme, host, port and path */
+    protected static final class Endpoint {
+        private final String scheme;
+        private final String host;
+        private final int port;
+        private final String path;
+
+        Endpoint(String scheme, String host, int port, String path) {
+            this.scheme = scheme;
+            this.host = host;
+            this.port = port;
+            this.path = path;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Endpoint)) {
+                return false;
+            }
+
+            final Endpoint other = (Endpoint) o;
+            return port == other.port
+                    && path.equals(other.path)
+                    && host.equals(other.host)
+                    && scheme.equals(other.scheme);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((scheme.hashCode() * 31 + host.hashCode()) * 31 + port) * 31 + path.hashCode();
+        }
+    }
+}
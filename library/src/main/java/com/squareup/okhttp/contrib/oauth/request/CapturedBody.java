@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.request;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.RequestBody;
+
+import java.io.IOException;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+
+/**
+ * A request body whose bytes were captured once. The bytes that were read for signing are the ones
+ * sent on the wire; writing the body again does not call the original {@code writeTo()}.
+ */
+public final class CapturedBody extends RequestBody {
+    private final MediaType contentType;
+    private final ByteString bytes;
+
+    public CapturedBody(MediaType contentType, ByteString bytes) {
+        this.contentType = contentType;
+        this.bytes = bytes;
+    }
+
+    /** Captures the bytes of the body, or returns the body if it is captured already */
+    public static CapturedBody capture(RequestBody body) throws IOException {
+        if (body instanceof CapturedBody) {
+            return (CapturedBody) body;
+        }
+
+        final Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+
+        return new CapturedBody(body.contentType(), buffer.readByteString());
+    }
+
+    /** Returns the captured bytes */
+    public ByteString bytes() {
+        return bytes;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return bytes.size();
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        sink.write(bytes);
+    }
+}
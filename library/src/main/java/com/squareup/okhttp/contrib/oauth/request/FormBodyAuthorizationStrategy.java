@@ -0,0 +1,103 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.request;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.contrib.oauth.encoder.PercentEncoder;
+
+import java.io.IOException;
+import java.util.Map;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * Puts the oauth_* params into the form-encoded body. The percent-encoded pairs are appended to the
+ * captured body bytes; the body is neither parsed nor serialized again. Requests without a body,
+ * e.g. DELETE, get a body of just the oauth_* params. GET and HEAD requests cannot carry a body and
+ * are rejected; sign them with {@link QueryAuthorizationStrategy} or the header instead. If the
+ * request carries framing headers already, as it does in a network interceptor, Content-Length and
+ * Content-Type are updated to the new body.
+ */
+public class FormBodyAuthorizationStrategy implements AuthorizationStrategy {
+    private static final MediaType FORM_CONTENT_TYPE =
+            MediaType.parse("application/x-www-form-urlencoded");
+
+    @Override
+    public void applyTo(OAuthRequest request) {
+        if ("GET".equals(request.verb()) || "HEAD".equals(request.verb())) {
+            throw new IllegalArgumentException(request.verb() + " requests cannot carry a form body,"
+                    + " use QueryAuthorizationStrategy");
+        }
+
+        final RequestBody body = request.requestBody();
+        final Buffer form = new Buffer();
+        MediaType contentType = FORM_CONTENT_TYPE;
+        if (body instanceof CapturedBody && request.hasFormBody()) {
+            form.write(((CapturedBody) body).bytes());
+            contentType = body.contentType();
+        } else if (body != null && !isEmpty(body)) {
+            throw new IllegalArgumentException("Request body is not form-encoded: " + body.contentType());
+        }
+
+        for (Map.Entry<String, ByteString> param : request.encodedOauth().entrySet()) {
+            if (form.size() > 0) {
+                form.writeByte('&');
+            }
+            PercentEncoder.encode(param.getKey(), form)
+                    .writeByte('=')
+                    .write(param.getValue());
+        }
+
+        final Request original = request.originalRequest();
+        final CapturedBody authorizedBody = new CapturedBody(contentType, form.readByteString());
+        final Request.Builder builder = original.newBuilder().method(request.verb(), authorizedBody);
+        if (original.header("Content-Length") != null || original.header("Transfer-Encoding") != null) {
+            // Framing headers were set already, e.g. in a network interceptor; describe the new body
+            builder.header("Content-Length", Long.toString(authorizedBody.contentLength()))
+                    .header("Content-Type", contentType.toString())
+                    .removeHeader("Transfer-Encoding");
+        }
+        final Request req = builder.build();
+
+        request.authorizedRequest(req);
+    }
+
+    @Override
+    public boolean sendsFormBody(OAuthRequest request) {
+        return true;
+    }
+
+    /** Returns true for an empty body without content type, as OkHttp sends for {@code delete()} */
+    private static boolean isEmpty(RequestBody body) {
+        try {
+            return body.contentType() == null && body.contentLength() == 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
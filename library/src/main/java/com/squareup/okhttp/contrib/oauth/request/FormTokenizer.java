@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.request;
+
+import com.squareup.okhttp.contrib.oauth.encoder.PercentEncoder;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * Tokenizes an {@code application/x-www-form-urlencoded} body pair by pair. Names and values are
+ * re-encoded from form encoding to the percent-encoding OAuth requires byte by byte, without
+ * decoding them to strings first.
+ *
+ * <pre>
+ * FormTokenizer form = new FormTokenizer(body);
+ * while (form.next()) {
+ *     params.addEncoded(form.encodedName(), form.encodedValue());
+ * }
+ * </pre>
+ */
+public final class FormTokenizer {
+    private final ByteString form;
+    private final Buffer scratch = new Buffer();
+    private int pos;
+    private ByteString encodedName;
+    private ByteString encodedValue;
+
+    public FormTokenizer(ByteString form) {
+        this.form = form;
+    }
+
+    /** Tokenizes the form and adds its pairs to the list */
+    public static ParameterList tokenize(ByteString form, ParameterList into) {
+        final FormTokenizer tokenizer = new FormTokenizer(form);
+        while (tokenizer.next()) {
+            into.addEncoded(tokenizer.encodedName, tokenizer.encodedValue);
+        }
+
+        return into;
+    }
+
+    /** Advances to the next pair; returns false once the form is exhausted */
+    public boolean next() {
+        final int size = form.size();
+        while (pos < size) {
+            final int pairEnd = indexOf('&', pos, size);
+            final int start = pos;
+            pos = pairEnd + 1;
+            if (pairEnd == start) {
+                continue;
+            }
+
+            final int equals = indexOf('=', start, pairEnd);
+            if (equals == pairEnd) {
+                throw new IllegalStateException("Key with no value: " + form.substring(start, pairEnd).utf8());
+            }
+            encodedName = reencode(start, equals);
+            encodedValue = reencode(equals + 1, pairEnd);
+            return true;
+        }
+
+        encodedName = null;
+        encodedValue = null;
+        return false;
+    }
+
+    /** Returns the percent-encoded name of the current pair */
+    public ByteString encodedName() {
+        return encodedName;
+    }
+
+    /** Returns the percent-encoded value of the current pair */
+    public ByteString encodedValue() {
+        return encodedValue;
+    }
+
+    private int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (form.getByte(i) == c) {
+                return i;
+            }
+        }
+
+        return to;
+    }
+
+    /** Re-encodes {@code form[from..to)}: '+' is a space, escapes are decoded and encoded again */
+    private ByteString reencode(int from, int to) {
+        // Fast path: a run of unreserved characters reads the same in both encodings
+        int i = from;
+        while (i < to && PercentEncoder.isUnreserved(form.getByte(i) & 0xff)) {
+            i++;
+        }
+        if (i == to) {
+            return form.substring(from, to);
+        }
+
+        for (int j = from; j < to; j++) {
+            int b = form.getByte(j) & 0xff;
+            if (b == '+') {
+                b = ' ';
+            } else if (b == '%') {
+                final int hi = j + 2 < to ? Character.digit(form.getByte(j + 1), 16) : -1;
+                final int lo = j + 2 < to ? Character.digit(form.getByte(j + 2), 16) : -1;
+                if (hi == -1 || lo == -1) {
+                    throw new IllegalArgumentException(
+                            "Invalid escape sequence at " + j + ": " + form.substring(from, to).utf8());
+                }
+                b = (hi << 4) | lo;
+                j += 2;
+            }
+            PercentEncoder.encodeByte(b, scratch);
+        }
+
+        return scratch.readByteString();
+    }
+}
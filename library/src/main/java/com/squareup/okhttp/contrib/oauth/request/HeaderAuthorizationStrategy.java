@@ -25,31 +25,53 @@
 package com.squareup.okhttp.contrib.oauth.request;
 
 import com.squareup.okhttp.Request;
+import com.squareup.okhttp.contrib.oauth.OAuth;
 import com.squareup.okhttp.contrib.oauth.encoder.PercentEncoder;
+import com.squareup.okhttp.contrib.oauth.signing.SigningContext;
+
+import java.util.Map;
 
 import okio.Buffer;
+import okio.ByteString;
 
 public class HeaderAuthorizationStrategy implements AuthorizationStrategy {
 
     @Override
     public void applyTo(OAuthRequest request) {
+        String header = null;
+        final SigningContext context = request.signingContext();
+        if (context != null) {
+            final HeaderTemplate template = request.encodedOauth().containsKey(OAuth.BODY_HASH)
+                    ? context.bodyHashHeaderTemplate()
+                    : context.headerTemplate();
+            header = template.render(request.encodedOauth());
+        }
+        if (header == null) {
+            header = render(request);
+        }
+
+        final Request req = request.newAuthorizedBuilder()
+            .header("Authorization", header)
+            .build();
+
+        request.authorizedRequest(req);
+    }
+
+    /** Renders the header param by param, for requests whose params do not match a template */
+    protected String render(OAuthRequest request) {
         final Buffer authString = new Buffer();
-        for (String key : request.oauth().keySet()) {
+        for (Map.Entry<String, ByteString> param : request.encodedOauth().entrySet()) {
             if (authString.size() > 0) {
                 authString.writeUtf8(", ");
             } else {
                 authString.writeUtf8("OAuth ");
             }
-            authString.writeUtf8(key)
+            PercentEncoder.encode(param.getKey(), authString)
                     .writeUtf8("=\"")
-                    .writeUtf8(PercentEncoder.encode(request.oauth().get(key)))
+                    .write(param.getValue())
                     .writeUtf8("\"");
         }
 
-        final Request req = request.originalRequest().newBuilder()
-            .header("Authorization", authString.readUtf8())
-            .build();
-
-        request.authorizedRequest(req);
+        return authString.readUtf8();
     }
 }
@@ -0,0 +1,134 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.request;
+
+import com.squareup.okhttp.contrib.oauth.encoder.PercentEncoder;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * A precompiled {@code Authorization} header. The params that are the same for every request are
+ * rendered into static byte chunks once; rendering a header only fills in the slots, e.g. nonce,
+ * timestamp and signature, with one exact-size allocation.
+ */
+public final class HeaderTemplate {
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    private final byte[][] chunks;
+    private final String[] slots;
+    private final int paramCount;
+    private final int staticLength;
+
+    private HeaderTemplate(byte[][] chunks, String[] slots, int paramCount) {
+        this.chunks = chunks;
+        this.slots = slots;
+        this.paramCount = paramCount;
+
+        int length = 0;
+        for (byte[] chunk : chunks) {
+            length += chunk.length;
+        }
+        this.staticLength = length;
+    }
+
+    /**
+     * Compiles a template. Params are rendered in the order of their names, like
+     * {@link HeaderAuthorizationStrategy} does.
+     *
+     * @param staticParams Params with a fixed value, percent-encoded
+     * @param slots Names of the params whose values are filled in per request
+     */
+    public static HeaderTemplate compile(ParameterList staticParams, String... slots) {
+        final SortedMap<String, ByteString> params = new TreeMap<>();
+        for (int i = 0; i < staticParams.size(); i++) {
+            params.put(staticParams.name(i), staticParams.encodedValue(i));
+        }
+        for (String slot : slots) {
+            params.put(slot, null);
+        }
+
+        final List<byte[]> chunks = new ArrayList<>();
+        final List<String> slotNames = new ArrayList<>();
+        final Buffer chunk = new Buffer();
+        for (Map.Entry<String, ByteString> param : params.entrySet()) {
+            chunk.writeUtf8(chunk.size() == 0 && chunks.isEmpty() ? "OAuth " : ", ");
+            PercentEncoder.encode(param.getKey(), chunk).writeUtf8("=\"");
+            if (param.getValue() != null) {
+                chunk.write(param.getValue()).writeUtf8("\"");
+            } else {
+                chunks.add(chunk.readByteArray());
+                slotNames.add(param.getKey());
+                chunk.writeUtf8("\"");
+            }
+        }
+        chunks.add(chunk.readByteArray());
+
+        return new HeaderTemplate(chunks.toArray(new byte[chunks.size()][]),
+                slotNames.toArray(new String[slotNames.size()]), params.size());
+    }
+
+    /**
+     * Renders the header from the request's percent-encoded oauth_* params.
+     *
+     * @return The header value, or null if the params do not match the template
+     */
+    public String render(SortedMap<String, ByteString> encodedOauth) {
+        if (encodedOauth.size() != paramCount) {
+            return null;
+        }
+
+        int length = staticLength;
+        for (String slot : slots) {
+            final ByteString value = encodedOauth.get(slot);
+            if (value == null) {
+                return null;
+            }
+            length += value.size();
+        }
+
+        final byte[] header = new byte[length];
+        int pos = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            System.arraycopy(chunks[i], 0, header, pos, chunks[i].length);
+            pos += chunks[i].length;
+            if (i < slots.length) {
+                final ByteString value = encodedOauth.get(slots[i]);
+                for (int j = 0, size = value.size(); j < size; j++) {
+                    header[pos++] = value.getByte(j);
+                }
+            }
+        }
+
+        return new String(header, ISO_8859_1);
+    }
+}
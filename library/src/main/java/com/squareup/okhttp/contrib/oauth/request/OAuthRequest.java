@@ -24,29 +24,38 @@
 
 package com.squareup.okhttp.contrib.oauth.request;
 
-import com.squareup.okhttp.HttpUrl;
 import com.squareup.okhttp.MediaType;
 import com.squareup.okhttp.Request;
 import com.squareup.okhttp.RequestBody;
 import com.squareup.okhttp.contrib.oauth.encoder.PercentEncoder;
+import com.squareup.okhttp.contrib.oauth.signing.SigningContext;
 
 import java.io.IOException;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
-import okio.Buffer;
+import okio.ByteString;
 
 /** A mutable request object for an HTTP request being made */
 public class OAuthRequest {
-    private static final MediaType FORM_CONTENT_TYPE =
-            MediaType.parse("application/x-www-form-urlencoded");
 
     protected final Request original;
-    protected final SortedMap<String, String> oAuthParams = new TreeMap<>();
+    /** The oauth_* params, values are kept percent-encoded */
+    protected final SortedMap<String, ByteString> oAuthParams = new TreeMap<>();
     protected Request authorized;
+    protected SigningContext signingContext;
+
+    /** The form body of the original request, captured once on first access */
+    private CapturedBody formBody;
+    /** Another body of the original request, captured once for the body hash */
+    private CapturedBody capturedBody;
+    /** Query and body params of the original request, parsed once on first access */
+    private ParameterList queryParams;
+    private ParameterList bodyParams;
+    private Map<String, String> queryMap;
+    private Map<String, String> bodyMap;
 
     public OAuthRequest(Request request) {
         this.original = request;
@@ -54,35 +63,169 @@ public class OAuthRequest {
 
     public OAuthRequest(OAuthRequest oAuthRequest) {
         this.original = oAuthRequest.originalRequest();
-        this.oAuthParams.putAll(oAuthRequest.oauth());
+        this.oAuthParams.putAll(oAuthRequest.oAuthParams);
+        this.formBody = oAuthRequest.formBody;
+        this.capturedBody = oAuthRequest.capturedBody;
+        this.queryParams = oAuthRequest.queryParams;
+        this.bodyParams = oAuthRequest.bodyParams;
+        this.queryMap = oAuthRequest.queryMap;
+        this.bodyMap = oAuthRequest.bodyMap;
     }
 
     public String verb() {
         return original.method();
     }
 
+    /** Returns the base string URI, see {@link BaseUrlCache#baseUrl(com.squareup.okhttp.HttpUrl)} */
     public String baseUrl() {
-        return original.httpUrl().newBuilder().query(null).fragment(null).build().toString();
+        return BaseUrlCache.baseUrl(original.httpUrl());
     }
 
+    /** Returns the oauth_* params, decoded */
     public Map<String, String> oauth() {
-        return Collections.unmodifiableMap(oAuthParams);
+        final Map<String, String> oauth = new TreeMap<>();
+        for (Map.Entry<String, ByteString> param : oAuthParams.entrySet()) {
+            oauth.put(param.getKey(), PercentEncoder.decode(param.getValue().utf8()));
+        }
+
+        return Collections.unmodifiableMap(oauth);
     }
 
     public void oauth(String key, String value) {
-        oAuthParams.put(key, value);
+        oAuthParams.put(key, ByteString.encodeUtf8(PercentEncoder.encode(value)));
     }
 
     public String oauth(String key) {
+        final ByteString value = oAuthParams.get(key);
+
+        return value != null ? PercentEncoder.decode(value.utf8()) : null;
+    }
+
+    /** Returns the oauth_* params, percent-encoded */
+    public SortedMap<String, ByteString> encodedOauth() {
+        return Collections.unmodifiableSortedMap(oAuthParams);
+    }
+
+    /** Sets an oauth_* param whose value is percent-encoded already */
+    public void encodedOauth(String key, ByteString encodedValue) {
+        oAuthParams.put(key, encodedValue);
+    }
+
+    public ByteString encodedOauth(String key) {
         return oAuthParams.get(key);
     }
 
+    /** Returns the query params; of repeated names, the last value wins */
     public Map<String, String> query() {
-        return Collections.unmodifiableMap(extractQueryParams(original));
+        if (queryMap == null) {
+            queryMap = queryParameters().toMap();
+        }
+
+        return queryMap;
     }
 
+    /** Returns the (form-encoded) body params; of repeated names, the last value wins */
     public Map<String, String> body() {
-        return Collections.unmodifiableMap(extractBodyParams(original.body()));
+        if (bodyMap == null) {
+            bodyMap = bodyParameters().toMap();
+        }
+
+        return bodyMap;
+    }
+
+    /** Returns all query params, percent-encoded; parsed once, the list is immutable */
+    public ParameterList queryParameters() {
+        if (queryParams == null) {
+            queryParams = extractQueryParams(original);
+        }
+
+        return queryParams;
+    }
+
+    /** Returns all (form-encoded) body params, percent-encoded; parsed once, the list is immutable */
+    public ParameterList bodyParameters() {
+        if (bodyParams == null) {
+            final CapturedBody form = formBody();
+            bodyParams = form != null
+                    ? FormTokenizer.tokenize(form.bytes(), new ParameterList()).freeze()
+                    : new ParameterList(0).freeze();
+        }
+
+        return bodyParams;
+    }
+
+    /**
+     * Adds all (form-encoded) body params to the list. Unless {@link #bodyParameters()} was parsed
+     * already, the params are tokenized straight into the list.
+     */
+    public ParameterList addBodyParameters(ParameterList into) {
+        if (bodyParams != null) {
+            return into.addAll(bodyParams);
+        }
+
+        final CapturedBody form = formBody();
+        return form != null ? FormTokenizer.tokenize(form.bytes(), into) : into;
+    }
+
+    /**
+     * Returns the body to send: a form body, or a body captured by {@link #replayableBody(long)}, is
+     * captured once, so that the bytes that were signed are the bytes that get sent.
+     */
+    public RequestBody requestBody() {
+        final CapturedBody form = formBody();
+        if (form != null) {
+            return form;
+        }
+
+        return capturedBody != null ? capturedBody : original.body();
+    }
+
+    /**
+     * Returns a body that can be read, e.g. for the body hash, and still be sent: a {@link FileBody}
+     * or {@link CapturedBody} as it is, or the original body captured once if its length is known
+     * and at most {@code maxCaptureBytes}. Returns null for other bodies, e.g. one-shot streams,
+     * which must only be read when they are sent.
+     */
+    public RequestBody replayableBody(long maxCaptureBytes) throws IOException {
+        final RequestBody body = original.body();
+        if (body == null || body instanceof FileBody || body instanceof CapturedBody) {
+            return body;
+        }
+
+        if (capturedBody == null) {
+            final long length = body.contentLength();
+            if (length < 0 || length > maxCaptureBytes) {
+                return null;
+            }
+            capturedBody = CapturedBody.capture(body);
+        }
+
+        return capturedBody;
+    }
+
+    /** Returns true if the body is {@code application/x-www-form-urlencoded} */
+    public boolean hasFormBody() {
+        return isForm(original.body());
+    }
+
+    /** Returns a builder of the authorized request, with the {@link #requestBody()} */
+    public Request.Builder newAuthorizedBuilder() {
+        final Request.Builder builder = original.newBuilder();
+        final RequestBody body = requestBody();
+        if (body != original.body()) {
+            builder.method(original.method(), body);
+        }
+
+        return builder;
+    }
+
+    /** Returns the context this request was signed with, or null */
+    public SigningContext signingContext() {
+        return signingContext;
+    }
+
+    public void signingContext(SigningContext signingContext) {
+        this.signingContext = signingContext;
     }
 
     public Request originalRequest() {
@@ -98,46 +241,41 @@ public class OAuthRequest {
     }
 
 
-    static Map<String, String> extractBodyParams(RequestBody body) {
-        // extract form-encoded HTTP body params
-        final Map<String, String> bodyParams = new HashMap<>();
-        if (body != null && body.contentType().equals(FORM_CONTENT_TYPE)) {
-            final Buffer buffer = new Buffer();
+    private CapturedBody formBody() {
+        if (formBody == null && isForm(original.body())) {
             try {
-                body.writeTo(buffer);
+                formBody = CapturedBody.capture(original.body());
+            } catch (IOException e) {
+            }
+        }
+
+        return formBody;
+    }
 
-                while (!buffer.exhausted()) {
-                    long keyEnd = buffer.indexOf((byte) '=');
-                    if (keyEnd == -1)
-                        throw new IllegalStateException("Key with no value: " + buffer.readUtf8());
-                    String key = buffer.readUtf8(keyEnd);
-                    buffer.skip(1); // Equals.
+    /** Returns true for {@code application/x-www-form-urlencoded} bodies, with or without charset */
+    static boolean isForm(RequestBody body) {
+        final MediaType contentType = body != null ? body.contentType() : null;
 
-                    long valueEnd = buffer.indexOf((byte) '&');
-                    String value = valueEnd == -1 ? buffer.readUtf8() : buffer.readUtf8(valueEnd);
-                    if (valueEnd != -1) buffer.skip(1); // Ampersand.
+        return contentType != null
+                && "application".equalsIgnoreCase(contentType.type())
+                && "x-www-form-urlencoded".equalsIgnoreCase(contentType.subtype());
+    }
 
-                    bodyParams.put(PercentEncoder.decode(key), value);
-                }
+    static ParameterList extractBodyParams(RequestBody body) {
+        // extract form-encoded HTTP body params
+        if (isForm(body)) {
+            try {
+                return FormTokenizer.tokenize(CapturedBody.capture(body).bytes(), new ParameterList()).freeze();
             } catch (IOException e) {
             }
         }
 
-        return bodyParams;
+        return new ParameterList(0).freeze();
     }
 
-    static Map<String, String> extractQueryParams(Request request) {
+    static ParameterList extractQueryParams(Request request) {
         // extract HTTP query params
-        final HttpUrl url = request.httpUrl();
-        final Map<String, String> queryParams = new HashMap<>(url.querySize());
-        for (int i = 0, len = url.querySize(); i < len; i++) {
-            final String key = url.queryParameterName(i);
-            final String value = url.queryParameterValue(i);
-
-            queryParams.put(key, value);
-        }
-
-        return queryParams;
+        return ParameterList.ofQuery(request.httpUrl()).freeze();
     }
 
 }
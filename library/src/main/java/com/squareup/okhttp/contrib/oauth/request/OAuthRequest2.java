@@ -53,5 +53,11 @@ public abstract class OAuthRequest2<T> {
     /** Returns the (form-encoded) body params */
     public abstract Map<String, String> body();
 
+    /** Returns all query params, percent-encoded */
+    public abstract ParameterList queryParameters();
+
+    /** Returns all (form-encoded) body params, percent-encoded */
+    public abstract ParameterList bodyParameters();
+
     public abstract T request();
 }
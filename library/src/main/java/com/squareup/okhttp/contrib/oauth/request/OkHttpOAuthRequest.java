@@ -24,25 +24,14 @@
 
 package com.squareup.okhttp.contrib.oauth.request;
 
-import com.squareup.okhttp.HttpUrl;
-import com.squareup.okhttp.MediaType;
 import com.squareup.okhttp.Request;
-import com.squareup.okhttp.RequestBody;
-import com.squareup.okhttp.contrib.oauth.encoder.PercentEncoder;
 
-import java.io.IOException;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
-import okio.Buffer;
-
 public class OkHttpOAuthRequest extends OAuthRequest2<Request> {
-    private static final MediaType FORM_CONTENT_TYPE =
-            MediaType.parse("application/x-www-form-urlencoded");
-
     protected SortedMap<String, String> oAuthParams = new TreeMap<>();
 
     public OkHttpOAuthRequest(Request request) {
@@ -76,60 +65,26 @@ public class OkHttpOAuthRequest extends OAuthRequest2<Request> {
 
     @Override
     public Map<String, String> query() {
-        return Collections.unmodifiableMap(extractQueryParams(wrapped));
+        return queryParameters().toMap();
     }
 
     @Override
     public Map<String, String> body() {
-        return Collections.unmodifiableMap(extractBodyParams(wrapped.body()));
+        return bodyParameters().toMap();
     }
 
     @Override
-    public Request request() {
-        return wrapped;
+    public ParameterList queryParameters() {
+        return OAuthRequest.extractQueryParams(wrapped);
     }
 
-
-
-    static Map<String, String> extractBodyParams(RequestBody body) {
-        // extract form-encoded HTTP body params
-        final Map<String, String> bodyParams = new HashMap<>();
-        if (body != null && body.contentType().equals(FORM_CONTENT_TYPE)) {
-            final Buffer buffer = new Buffer();
-            try {
-                body.writeTo(buffer);
-
-                while (!buffer.exhausted()) {
-                    long keyEnd = buffer.indexOf((byte) '=');
-                    if (keyEnd == -1)
-                        throw new IllegalStateException("Key with no value: " + buffer.readUtf8());
-                    String key = buffer.readUtf8(keyEnd);
-                    buffer.skip(1); // Equals.
-
-                    long valueEnd = buffer.indexOf((byte) '&');
-                    String value = valueEnd == -1 ? buffer.readUtf8() : buffer.readUtf8(valueEnd);
-                    if (valueEnd != -1) buffer.skip(1); // Ampersand.
-
-                    bodyParams.put(key, value);
-                }
-            } catch (IOException e) {
-            }
-        }
-
-        return bodyParams;
+    @Override
+    public ParameterList bodyParameters() {
+        return OAuthRequest.extractBodyParams(wrapped.body());
     }
 
-    static Map<String, String> extractQueryParams(Request request) {
-        // extract HTTP query params
-        final HttpUrl url = request.httpUrl();
-        final Map<String, String> queryParams = new HashMap<>(url.querySize());
-        for (int i = 0, len = url.querySize(); i < len; i++) {
-            final String key = PercentEncoder.encode(url.queryParameterName(i));
-            final String value = PercentEncoder.encode(url.queryParameterValue(i));
-
-            queryParams.put(key, value);
-        }
-
-        return queryParams;
+    @Override
+    public Request request() {
+        return wrapped;
     }
 }
@@ -0,0 +1,273 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.request;
+
+import com.squareup.okhttp.HttpUrl;
+import com.squareup.okhttp.contrib.oauth.encoder.PercentEncoder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * A list of percent-encoded parameter names and values, kept in parallel arrays. Names may repeat,
+ * e.g. {@code ?id=1&id=2}. {@link #sort()} orders the parameters by encoded name, then by encoded
+ * value, in byte order as RFC 5849 section 3.4.1.3.2 requires for the signature base string.
+ *
+ * <p>Lists used only while signing can be borrowed from a per-thread pool with {@link #obtain()}
+ * and returned with {@link #recycle()}.
+ */
+public final class ParameterList {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private static final ThreadLocal<ParameterList> POOL = new ThreadLocal<ParameterList>() {
+        @Override
+        protected ParameterList initialValue() {
+            return new ParameterList();
+        }
+    };
+
+    private ByteString[] names;
+    private ByteString[] values;
+    private int size;
+    private ByteString[] scratchNames;
+    private ByteString[] scratchValues;
+    private boolean frozen;
+    private boolean pooled;
+    private boolean inUse;
+
+    public ParameterList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ParameterList(int capacity) {
+        this.names = new ByteString[capacity];
+        this.values = new ByteString[capacity];
+    }
+
+    /** Borrows an empty list from the pool of the calling thread, see {@link #recycle()} */
+    public static ParameterList obtain() {
+        final ParameterList list = POOL.get();
+        if (list.inUse) {
+            return new ParameterList();
+        }
+
+        list.pooled = true;
+        list.inUse = true;
+        return list;
+    }
+
+    /** Clears the list and returns it to the pool it was obtained from */
+    public void recycle() {
+        if (frozen) {
+            throw new IllegalStateException("Immutable list cannot be recycled");
+        }
+
+        clear();
+        if (pooled) {
+            inUse = false;
+        }
+    }
+
+    /** Parses the query of the url */
+    public static ParameterList ofQuery(HttpUrl url) {
+        final int querySize = url.querySize();
+        final ParameterList list = new ParameterList(Math.max(querySize, 1));
+        for (int i = 0; i < querySize; i++) {
+            final String value = url.queryParameterValue(i);
+            list.add(url.queryParameterName(i), value != null ? value : "");
+        }
+
+        return list;
+    }
+
+    /**
+     * Parses an {@code application/x-www-form-urlencoded} body. Names and values are decoded, with
+     * {@code '+'} as space, and then percent-encoded as OAuth requires, see {@link FormTokenizer}.
+     */
+    public static ParameterList ofForm(Buffer form) {
+        return FormTokenizer.tokenize(form.readByteString(), new ParameterList());
+    }
+
+    /** Adds a parameter, percent-encoding name and value */
+    public ParameterList add(String name, String value) {
+        return addEncoded(ByteString.encodeUtf8(PercentEncoder.encode(name)),
+                ByteString.encodeUtf8(PercentEncoder.encode(value)));
+    }
+
+    /** Adds a parameter whose name and value are percent-encoded already */
+    public ParameterList addEncoded(ByteString encodedName, ByteString encodedValue) {
+        checkMutable();
+        if (size == names.length) {
+            final int capacity = Math.max(4, names.length * 2);
+            names = Arrays.copyOf(names, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        names[size] = encodedName;
+        values[size] = encodedValue;
+        size++;
+
+        return this;
+    }
+
+    /** Adds all parameters of the other list */
+    public ParameterList addAll(ParameterList other) {
+        for (int i = 0; i < other.size; i++) {
+            addEncoded(other.names[i], other.values[i]);
+        }
+
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ByteString encodedName(int index) {
+        checkIndex(index);
+        return names[index];
+    }
+
+    public ByteString encodedValue(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    public String name(int index) {
+        return PercentEncoder.decode(encodedName(index).utf8());
+    }
+
+    public String value(int index) {
+        return PercentEncoder.decode(encodedValue(index).utf8());
+    }
+
+    /** Sorts by encoded name, then by encoded value, in byte order. The sort is stable. */
+    public ParameterList sort() {
+        checkMutable();
+        if (size > INSERTION_SORT_THRESHOLD) {
+            if (scratchNames == null || scratchNames.length < size) {
+                scratchNames = new ByteString[names.length];
+                scratchValues = new ByteString[names.length];
+            }
+            mergeSort(0, size);
+            Arrays.fill(scratchNames, 0, size, null);
+            Arrays.fill(scratchValues, 0, size, null);
+        } else {
+            insertionSort(0, size);
+        }
+
+        return this;
+    }
+
+    private void insertionSort(int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            final ByteString name = names[i];
+            final ByteString value = values[i];
+            int j = i - 1;
+            while (j >= from && compare(names[j], values[j], name, value) > 0) {
+                names[j + 1] = names[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            names[j + 1] = name;
+            values[j + 1] = value;
+        }
+    }
+
+    private void mergeSort(int from, int to) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            insertionSort(from, to);
+            return;
+        }
+
+        final int mid = (from + to) >>> 1;
+        mergeSort(from, mid);
+        mergeSort(mid, to);
+        if (compare(names[mid - 1], values[mid - 1], names[mid], values[mid]) <= 0) {
+            return; // already in order
+        }
+
+        System.arraycopy(names, from, scratchNames, from, to - from);
+        System.arraycopy(values, from, scratchValues, from, to - from);
+        for (int i = from, left = from, right = mid; i < to; i++) {
+            if (right >= to || left < mid && compare(scratchNames[left], scratchValues[left],
+                    scratchNames[right], scratchValues[right]) <= 0) {
+                names[i] = scratchNames[left];
+                values[i] = scratchValues[left++];
+            } else {
+                names[i] = scratchNames[right];
+                values[i] = scratchValues[right++];
+            }
+        }
+    }
+
+    private static int compare(ByteString name1, ByteString value1, ByteString name2, ByteString value2) {
+        final int byName = name1.compareTo(name2);
+
+        return byName != 0 ? byName : value1.compareTo(value2);
+    }
+
+    public void clear() {
+        checkMutable();
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    /** Makes this list immutable, further modifications throw {@link IllegalStateException} */
+    public ParameterList freeze() {
+        frozen = true;
+
+        return this;
+    }
+
+    /** Returns the decoded parameters as a map; of repeated names, the last value wins */
+    public Map<String, String> toMap() {
+        final Map<String, String> map = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            map.put(name(i), value(i));
+        }
+
+        return Collections.unmodifiableMap(map);
+    }
+
+    private void checkMutable() {
+        if (frozen) {
+            throw new IllegalStateException("Immutable list");
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+    }
+}
@@ -24,16 +24,30 @@
 
 package com.squareup.okhttp.contrib.oauth.request;
 
-import com.squareup.okhttp.contrib.oauth.request.AuthorizationStrategy;
-import com.squareup.okhttp.contrib.oauth.request.OAuthRequest;
+import com.squareup.okhttp.HttpUrl;
+import com.squareup.okhttp.Request;
 
+import java.util.Map;
+
+import okio.ByteString;
+
+/**
+ * Puts the oauth_* params into the query string. The percent-encoded values are appended to the
+ * existing url as they are.
+ */
 public class QueryAuthorizationStrategy implements AuthorizationStrategy {
 
     @Override
     public void applyTo(OAuthRequest request) {
+        final HttpUrl.Builder url = request.originalRequest().httpUrl().newBuilder();
+        for (Map.Entry<String, ByteString> param : request.encodedOauth().entrySet()) {
+            url.addEncodedQueryParameter(param.getKey(), param.getValue().utf8());
+        }
 
-        // TODO ... all oauth_* params need to go the query string?!?
+        final Request req = request.newAuthorizedBuilder()
+            .url(url.build())
+            .build();
 
-        throw new UnsupportedOperationException("not yet implemented");
+        request.authorizedRequest(req);
     }
 }
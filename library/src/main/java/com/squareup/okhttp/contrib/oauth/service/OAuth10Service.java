@@ -24,33 +24,62 @@
 
 package com.squareup.okhttp.contrib.oauth.service;
 
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
 import com.squareup.okhttp.contrib.oauth.OAuth;
 import com.squareup.okhttp.contrib.oauth.OAuthConsumer;
 import com.squareup.okhttp.contrib.oauth.OAuthService;
+import com.squareup.okhttp.contrib.oauth.consumer.RegisteredConsumer;
+import com.squareup.okhttp.contrib.oauth.consumer.RotatingConsumer;
 import com.squareup.okhttp.contrib.oauth.encoder.PercentEncoder;
 import com.squareup.okhttp.contrib.oauth.request.AuthorizationStrategy;
+import com.squareup.okhttp.contrib.oauth.request.BaseUrlCache;
 import com.squareup.okhttp.contrib.oauth.request.HeaderAuthorizationStrategy;
 import com.squareup.okhttp.contrib.oauth.request.OAuthRequest;
+import com.squareup.okhttp.contrib.oauth.request.ParameterList;
+import com.squareup.okhttp.contrib.oauth.signing.BodyHash;
 import com.squareup.okhttp.contrib.oauth.signing.DefaultNonceGenerator;
 import com.squareup.okhttp.contrib.oauth.signing.DefaultTimestampGenerator;
 import com.squareup.okhttp.contrib.oauth.signing.HmacSha1SignatureMethod;
+import com.squareup.okhttp.contrib.oauth.signing.HmacSignatureMethod;
 import com.squareup.okhttp.contrib.oauth.signing.NonceGenerator;
+import com.squareup.okhttp.contrib.oauth.signing.OAuthCredentials;
+import com.squareup.okhttp.contrib.oauth.signing.SignatureBaseString;
 import com.squareup.okhttp.contrib.oauth.signing.SignatureMethod;
+import com.squareup.okhttp.contrib.oauth.signing.SigningContext;
 import com.squareup.okhttp.contrib.oauth.signing.SigningException;
 import com.squareup.okhttp.contrib.oauth.signing.TimestampGenerator;
+import com.squareup.okhttp.contrib.oauth.token.RotatingToken;
 import com.squareup.okhttp.contrib.oauth.token.Token;
 
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 
 import okio.Buffer;
+import okio.ByteString;
 
 public class OAuth10Service implements OAuthService {
+    private static final ByteString BODY_HASH_NAME = ByteString.encodeUtf8(OAuth.BODY_HASH);
+    private static final ByteString NONCE_NAME = ByteString.encodeUtf8(OAuth.NONCE);
+    private static final ByteString TIMESTAMP_NAME = ByteString.encodeUtf8(OAuth.TIMESTAMP);
 
     protected AuthorizationStrategy authorizationStrategy = new HeaderAuthorizationStrategy();
     protected SignatureMethod signatureMethod = new HmacSha1SignatureMethod();
     protected TimestampGenerator timestamp = new DefaultTimestampGenerator();
     protected NonceGenerator nonce = new DefaultNonceGenerator();
+    protected BaseUrlCache baseUrls = new BaseUrlCache();
+    /**
+     * Whether to sign non-form bodies with oauth_body_hash, see {@link BodyHash}. Only bodies that
+     * can be read and still be sent are hashed, see {@link OAuthRequest#replayableBody(long)}.
+     */
+    protected boolean bodyHash = true;
+    /** Largest body of unknown type that is captured in memory for its body hash */
+    protected long maxCapturedBodyBytes = 64 * 1024;
 
     @Override
     public SignatureMethod signatureMethod() {
@@ -76,59 +105,159 @@ public class OAuth10Service implements OAuthService {
     public OAuthRequest authorizeRequest(OAuthRequest request, OAuthConsumer consumer, Token token)
             throws SigningException {
 
-        final OAuthRequest authorized = new OAuthRequest(request);
+        return authorizeRequest(request, signingContext(consumer, token));
+    }
 
-        // Build oauth_* params
-        authorized.oauth(OAuth.CONSUMER_KEY, consumer.key());
-        authorized.oauth(OAuth.NONCE, nonce.create());
-        authorized.oauth(OAuth.SIGNATURE_METHOD, signatureMethod.methodName());
-        authorized.oauth(OAuth.TIMESTAMP, "" + timestamp.create());
-        if (token != null && token.value() != null && token.value().length() > 0) {
-            authorized.oauth(OAuth.TOKEN, token.value());
+    @Override
+    public SigningContext signingContext(OAuthConsumer consumer, Token token) throws SigningException {
+        // Read key, value and secrets of rotating credentials from one snapshot each
+        final OAuthConsumer consumerSnapshot = RotatingConsumer.snapshotOf(consumer);
+        final Token tokenSnapshot = RotatingToken.snapshotOf(token);
+
+        final String secret = tokenSnapshot != null ? tokenSnapshot.secret() : null;
+        final String tokenSecret = secret != null ? secret : "";
+        if (consumerSnapshot instanceof RegisteredConsumer && signatureMethod instanceof HmacSignatureMethod) {
+            // Key from the pre-derived key material, without decoding the secret into the heap
+            return new SigningContext(consumerSnapshot, tokenSnapshot, ((HmacSignatureMethod) signatureMethod)
+                    .withDerivedKey((RegisteredConsumer) consumerSnapshot, tokenSecret));
         }
-        authorized.oauth(OAuth.VERSION, OAuth.VERSION_VALUE_10);
 
-        // Collect signing params, need to percent encode all the values
-        final SortedMap<String, String> signingParams = new TreeMap<>();
-        for (String key : authorized.oauth().keySet()) {
-            signingParams.put(key, PercentEncoder.encode(authorized.oauth().get(key)));
+        return new SigningContext(consumerSnapshot, tokenSnapshot,
+                signatureMethod.withKey(consumerSnapshot.secret(), tokenSecret));
+    }
+
+    @Override
+    public OAuthRequest authorizeRequest(OAuthRequest request, SigningContext context)
+            throws SigningException {
+
+        final OAuthRequest authorized = new OAuthRequest(request);
+
+        // Build oauth_* params; the static ones come pre-encoded from the context
+        final ParameterList staticParams = context.oauthParameters();
+        for (int i = 0, size = staticParams.size(); i < size; i++) {
+            authorized.encodedOauth(staticParams.encodedName(i).utf8(), staticParams.encodedValue(i));
         }
-        for (String key : request.query().keySet()) {
-            signingParams.put(key, PercentEncoder.encode(request.query().get(key)));
+        authorized.oauth(OAuth.NONCE, nonce.create());
+        authorized.oauth(OAuth.TIMESTAMP, Long.toString(timestamp.create()));
+        RequestBody hashedBody = null;
+        if (bodyHash && !authorizationStrategy.sendsFormBody(request)) {
+            try {
+                hashedBody = authorized.replayableBody(maxCapturedBodyBytes);
+            } catch (IOException e) {
+                throw new SigningException("Cannot read request body", e);
+            }
         }
-        for (String key : request.body().keySet()) {
-            signingParams.put(key, request.body().get(key)); // TODO ... running into issue if decoding body params first, encoding here again ...
+        final boolean hashBody = hashedBody != null;
+        if (hashBody) {
+            authorized.encodedOauth(OAuth.BODY_HASH, BodyHash.encodedHashOf(hashedBody,
+                    BodyHash.algorithmFor(context.signatureMethod().methodName())));
         }
 
-        // Create the parameter string
-        final Buffer parameterString = new Buffer();
-        for (String key : signingParams.keySet()) {
-            if (parameterString.size() > 0) {
-                parameterString.writeByte('&');
+        // Collect signing params, sorted by encoded name and value
+        final ParameterList signingParams = ParameterList.obtain();
+        final Buffer signature = new Buffer();
+        try {
+            signingParams.addAll(staticParams)
+                    .addEncoded(NONCE_NAME, authorized.encodedOauth(OAuth.NONCE))
+                    .addEncoded(TIMESTAMP_NAME, authorized.encodedOauth(OAuth.TIMESTAMP));
+            if (hashBody) {
+                signingParams.addEncoded(BODY_HASH_NAME, authorized.encodedOauth(OAuth.BODY_HASH));
+            }
+            for (Map.Entry<String, ByteString> param : request.encodedOauth().entrySet()) {
+                if (!isProtocolParam(param.getKey(), context, hashBody)) {
+                    signingParams.addEncoded(
+                            ByteString.encodeUtf8(PercentEncoder.encode(param.getKey())), param.getValue());
+                }
             }
+            signingParams.addAll(authorized.queryParameters());
+            authorized.addBodyParameters(signingParams);
+            signingParams.sort();
 
-            parameterString.writeUtf8(key)
-                    .writeByte('=')
-                    .writeUtf8(signingParams.get(key));
+            // Create oauth_signature, streaming the signature base string into the signature method
+            // and the percent-encoded signature into a buffer
+            final SignatureBaseString baseString = new SignatureBaseString(request.verb(),
+                    baseUrls.encodedBaseUrl(request.originalRequest().httpUrl()), signingParams);
+            context.signatureMethod().signatureOf(baseString, signature);
+        } finally {
+            signingParams.recycle();
         }
-
-        // Create the signature base string
-        final Buffer signatureBaseString = new Buffer()
-                .writeUtf8(request.verb())
-                .writeByte('&')
-                .writeUtf8(PercentEncoder.encode(request.baseUrl()))
-                .writeByte('&')
-                .writeUtf8(PercentEncoder.encode(parameterString.readUtf8()));
-
-        // Create oauth_signature
-        final String tokenSecret = (token != null) && token.secret() != null ? token.secret() : "";
-        signatureMethod.withKey(consumer.secret(), tokenSecret);
-        final String signature = signatureMethod.signatureOf(signatureBaseString.readUtf8());
-        authorized.oauth(OAuth.SIGNATURE, signature);
+        authorized.encodedOauth(OAuth.SIGNATURE, signature.readByteString());
+        authorized.signingContext(context);
 
         // Apply authorization to request
         authorizationStrategy.applyTo(authorized);
 
         return authorized;
     }
+
+    @Override
+    public List<Request> authorizeRequests(final List<OAuthRequest> requests, List<OAuthCredentials> credentials)
+            throws SigningException {
+
+        if (requests.size() != credentials.size()) {
+            throw new IllegalArgumentException("requests.size() != credentials.size()");
+        }
+
+        // Derive one context per consumer and token, so each key is initialized once; grouped by
+        // the consumer and token instances, so that no secret is decoded per request
+        final SigningContext[] contexts = new SigningContext[requests.size()];
+        final Map<List<Object>, SigningContext> groups = new HashMap<>();
+        for (int i = 0; i < contexts.length; i++) {
+            final OAuthCredentials creds = credentials.get(i);
+            if (creds == null || creds.consumer() == null) {
+                continue;
+            }
+
+            final List<Object> key = Arrays.<Object>asList(creds.consumer(), creds.token());
+            SigningContext context = groups.get(key);
+            if (context == null) {
+                context = creds.signingContext(this);
+                groups.put(key, context);
+            }
+            contexts[i] = context;
+        }
+
+        final Request[] authorized = new Request[contexts.length];
+        final AtomicReference<SigningException> failure = new AtomicReference<>();
+        IntStream.range(0, authorized.length).parallel().forEach(i -> {
+            if (failure.get() != null) {
+                return;
+            }
+            if (contexts[i] == null) {
+                authorized[i] = requests.get(i).originalRequest();
+                return;
+            }
+
+            try {
+                authorized[i] = authorizeRequest(requests.get(i), contexts[i]).authorizedRequest();
+            } catch (SigningException e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        return Arrays.asList(authorized);
+    }
+
+    /** Returns true for the oauth_* params that are set by the service */
+    private static boolean isProtocolParam(String key, SigningContext context, boolean hashBody) {
+        switch (key) {
+            case OAuth.BODY_HASH:
+                return hashBody;
+            case OAuth.CONSUMER_KEY:
+            case OAuth.NONCE:
+            case OAuth.SIGNATURE:
+            case OAuth.SIGNATURE_METHOD:
+            case OAuth.TIMESTAMP:
+            case OAuth.VERSION:
+                return true;
+            case OAuth.TOKEN:
+                return context.token() != null;
+            default:
+                return false;
+        }
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.contrib.oauth.OAuth;
+import com.squareup.okhttp.contrib.oauth.encoder.Base64Encoder;
+import com.squareup.okhttp.contrib.oauth.request.CapturedBody;
+import com.squareup.okhttp.contrib.oauth.request.FileBody;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+import okio.Okio;
+
+/**
+ * Computes the {@code oauth_body_hash} of the OAuth Request Body Hash extension: the base64
+ * encoded digest of the raw body bytes. The body is streamed through the digest in a single pass,
+ * a {@link FileBody} is hashed over the memory-mapped file, so no body is buffered in the heap.
+ */
+public final class BodyHash {
+    private static final long MAP_SIZE = 64L * 1024 * 1024;
+
+    private BodyHash() {
+    }
+
+    /** Returns the digest algorithm of the signature method, e.g. 'SHA-256' for 'HMAC-SHA256' */
+    public static String algorithmFor(String signatureMethod) {
+        switch (signatureMethod) {
+            case OAuth.SIGNATURE_METHOD_VALUE_HMAC_SHA256:
+            case OAuth.SIGNATURE_METHOD_VALUE_RSA_SHA256:
+                return "SHA-256";
+            case OAuth.SIGNATURE_METHOD_VALUE_HMAC_SHA512:
+                return "SHA-512";
+            default:
+                return "SHA-1";
+        }
+    }
+
+    /**
+     * Returns the body hash, percent-encoded.
+     *
+     * @param body Request body, or null for an empty body
+     * @param algorithm Digest algorithm, see {@link #algorithmFor(String)}
+     * @throws SigningException if the algorithm is not available or the body cannot be read
+     */
+    public static ByteString encodedHashOf(RequestBody body, String algorithm) throws SigningException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new SigningException("Body hash algorithm not available: " + algorithm, e);
+        }
+
+        try {
+            if (body instanceof CapturedBody) {
+                digest.update(((CapturedBody) body).bytes().toByteArray());
+            } else if (body instanceof FileBody) {
+                digestMapped((FileBody) body, digest);
+            } else if (body != null) {
+                final BufferedSink sink = Okio.buffer(UpdateSink.of(digest));
+                body.writeTo(sink);
+                sink.flush();
+            }
+
+            final Buffer encoded = new Buffer();
+            Base64Encoder.encodePercentEncoded(digest.digest(), encoded);
+            return encoded.readByteString();
+        } catch (IOException e) {
+            throw new SigningException("Cannot read request body", e);
+        }
+    }
+
+    private static void digestMapped(FileBody body, MessageDigest digest) throws IOException {
+        try (FileChannel channel = FileChannel.open(body.file().toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            for (long pos = 0; pos < size; pos += MAP_SIZE) {
+                final MappedByteBuffer mapped =
+                        channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MAP_SIZE, size - pos));
+                digest.update(mapped);
+            }
+        }
+    }
+}
@@ -24,17 +24,66 @@
 
 package com.squareup.okhttp.contrib.oauth.signing;
 
-import java.util.Random;
-
-import okio.ByteString;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 
+/**
+ * Creates random nonces of 32 URL-safe characters (192 bits of entropy) that never need to be
+ * percent-encoded. Every thread owns a {@link SecureRandom} and an entropy block that is refilled
+ * in bulk, so creating a nonce neither allocates a generator nor contends with other threads.
+ */
 public class DefaultNonceGenerator implements NonceGenerator {
+    private static final char[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final int NONCE_LENGTH = 32;
+    private static final int BLOCK_SIZE = NONCE_LENGTH * 16;
+
+    private final ThreadLocal<Entropy> entropy = new ThreadLocal<Entropy>() {
+        @Override
+        protected Entropy initialValue() {
+            return new Entropy(newSecureRandom());
+        }
+    };
 
     @Override
     public String create() {
-        byte[] b = new byte[32];
-        new Random().nextBytes(b);
+        final char[] nonce = new char[NONCE_LENGTH];
+        entropy.get().fill(nonce);
+
+        return new String(nonce);
+    }
+
+    /**
+     * Returns a generator that never blocks for seed material. The non-blocking native generator
+     * reads from {@code /dev/urandom}; the platform default is used where it is not available.
+     */
+    protected SecureRandom newSecureRandom() {
+        try {
+            return SecureRandom.getInstance("NativePRNGNonBlocking");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+
+    /** Per-thread block of random bytes */
+    private static final class Entropy {
+        private final SecureRandom random;
+        private final byte[] block = new byte[BLOCK_SIZE];
+        private int pos = BLOCK_SIZE;
+
+        Entropy(SecureRandom random) {
+            this.random = random;
+        }
+
+        void fill(char[] nonce) {
+            if (pos + nonce.length > BLOCK_SIZE) {
+                random.nextBytes(block);
+                pos = 0;
+            }
 
-        return ByteString.of(b).hex();
+            for (int i = 0; i < nonce.length; i++) {
+                nonce[i] = ALPHABET[block[pos++] & 0x3f];
+            }
+        }
     }
 }
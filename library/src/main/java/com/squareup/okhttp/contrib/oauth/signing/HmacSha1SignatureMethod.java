@@ -26,61 +26,28 @@ package com.squareup.okhttp.contrib.oauth.signing;
 
 
 import com.squareup.okhttp.contrib.oauth.OAuth;
-import com.squareup.okhttp.contrib.oauth.encoder.PercentEncoder;
+import com.squareup.okhttp.contrib.oauth.cache.BoundedCache;
 
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-
-import okio.Buffer;
-import okio.ByteString;
-
-public class HmacSha1SignatureMethod implements SignatureMethod {
+/** HMAC-SHA1 signatures, see {@link HmacSignatureMethod} */
+public class HmacSha1SignatureMethod extends HmacSignatureMethod {
     private static final String SIGNATURE_TYPE = "HmacSHA1";
 
-    protected Mac mac;
-
-    protected Buffer createKey(String consumerSecret, String tokenSecret) {
-        final Buffer key = new Buffer()
-                .writeUtf8(PercentEncoder.encode(consumerSecret))
-                .writeByte('&');
-        if (tokenSecret != null && tokenSecret.length() > 0) {
-            key.writeUtf8(PercentEncoder.encode(tokenSecret));
-        }
-
-        return key;
+    public HmacSha1SignatureMethod() {
+        this(DEFAULT_CACHE_SIZE);
     }
 
-    protected Mac createMac(Buffer key) throws NoSuchAlgorithmException, InvalidKeyException {
-        final SecretKeySpec secret = new SecretKeySpec(key.readByteArray(), SIGNATURE_TYPE);
-        final Mac mac = Mac.getInstance(SIGNATURE_TYPE);
-        mac.init(secret);
-
-        return mac;
+    /** @param cacheSize Maximum number of keys whose initialized {@link javax.crypto.Mac} is kept */
+    public HmacSha1SignatureMethod(int cacheSize) {
+        this(new BoundedCache<SigningKey, KeyedMac>(cacheSize), null);
     }
 
-    @Override
-    public SignatureMethod withKey(String consumerSecret, String tokenSecret) throws SigningException {
-        try {
-            Buffer key = createKey(consumerSecret, tokenSecret);
-            mac = createMac(key);
-        } catch (NoSuchAlgorithmException e) {
-            throw new SigningException("Algorithm not supported", e);
-        } catch (InvalidKeyException e) {
-            throw new SigningException("Invalid key", e);
-        }
-
-
-        return this;
+    protected HmacSha1SignatureMethod(BoundedCache<SigningKey, KeyedMac> macs, KeyedMac mac) {
+        super(SIGNATURE_TYPE, macs, mac);
     }
 
     @Override
-    public String signatureOf(String baseString) {
-        final ByteString signature = ByteString.of(mac.doFinal(baseString.getBytes()));
-
-        return signature.base64();
+    protected HmacSignatureMethod withMac(KeyedMac mac) {
+        return new HmacSha1SignatureMethod(macs, mac);
     }
 
     @Override
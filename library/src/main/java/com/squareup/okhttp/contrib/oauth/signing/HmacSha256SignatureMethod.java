@@ -0,0 +1,58 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+
+import com.squareup.okhttp.contrib.oauth.OAuth;
+import com.squareup.okhttp.contrib.oauth.cache.BoundedCache;
+
+/** HMAC-SHA256 signatures, see {@link HmacSignatureMethod} */
+public class HmacSha256SignatureMethod extends HmacSignatureMethod {
+    private static final String SIGNATURE_TYPE = "HmacSHA256";
+
+    public HmacSha256SignatureMethod() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /** @param cacheSize Maximum number of keys whose initialized {@link javax.crypto.Mac} is kept */
+    public HmacSha256SignatureMethod(int cacheSize) {
+        this(new BoundedCache<SigningKey, KeyedMac>(cacheSize), null);
+    }
+
+    protected HmacSha256SignatureMethod(BoundedCache<SigningKey, KeyedMac> macs, KeyedMac mac) {
+        super(SIGNATURE_TYPE, macs, mac);
+    }
+
+    @Override
+    protected HmacSignatureMethod withMac(KeyedMac mac) {
+        return new HmacSha256SignatureMethod(macs, mac);
+    }
+
+    @Override
+    public String methodName() {
+        return OAuth.SIGNATURE_METHOD_VALUE_HMAC_SHA256;
+    }
+
+}
@@ -0,0 +1,288 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+
+import com.squareup.okhttp.contrib.oauth.cache.BoundedCache;
+import com.squareup.okhttp.contrib.oauth.consumer.RegisteredConsumer;
+import com.squareup.okhttp.contrib.oauth.encoder.Base64Encoder;
+import com.squareup.okhttp.contrib.oauth.encoder.PercentEncoder;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.util.Arrays;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+import okio.Okio;
+
+/**
+ * Base class of the HMAC signature methods. Initialized {@link Mac} instances are cached per
+ * (consumer secret, token secret) pair; {@link #withKey(String, String)} returns an immutable
+ * signer for that key that clones the cached prototype for every signature, so the key schedule
+ * and the inner and outer pad hashing are done once per key. Instances are safe for concurrent use.
+ */
+public abstract class HmacSignatureMethod implements SignatureMethod {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    protected static final int DEFAULT_CACHE_SIZE = 1024;
+
+    /** JCE algorithm name, e.g. 'HmacSHA1' */
+    protected final String algorithm;
+    protected final BoundedCache<SigningKey, KeyedMac> macs;
+    protected final KeyedMac mac;
+
+    /**
+     * @param algorithm JCE algorithm name
+     * @param macs Cache of initialized {@link Mac} instances
+     * @param mac Initialized {@link Mac} of a keyed instance, null otherwise
+     */
+    protected HmacSignatureMethod(String algorithm, BoundedCache<SigningKey, KeyedMac> macs, KeyedMac mac) {
+        this.algorithm = algorithm;
+        this.macs = macs;
+        this.mac = mac;
+    }
+
+    /** Returns a keyed instance of the same signature method */
+    protected abstract HmacSignatureMethod withMac(KeyedMac mac);
+
+    protected Buffer createKey(String consumerSecret, String tokenSecret) {
+        final Buffer key = PercentEncoder.encode(consumerSecret, new Buffer()).writeByte('&');
+        if (tokenSecret != null && tokenSecret.length() > 0) {
+            PercentEncoder.encode(tokenSecret, key);
+        }
+
+        return key;
+    }
+
+    @Override
+    public SignatureMethod withKey(final String consumerSecret, final String tokenSecret) throws SigningException {
+        final SigningKey signingKey = new SigningKey(consumerSecret, tokenSecret);
+        KeyedMac keyed = macs.get(signingKey);
+        if (keyed == null) {
+            keyed = macs.putIfAbsent(signingKey, new KeyedMac(algorithm, null,
+                    () -> createKey(consumerSecret, tokenSecret).readByteArray()));
+        }
+
+        return withMac(keyed);
+    }
+
+    /**
+     * Returns an instance keyed with the pre-derived key of a registered consumer and the token
+     * secret. The consumer secret is never decoded into the heap; the key is built in one array
+     * that is zeroed once the {@link Mac} is initialized. Initialized instances are cached per
+     * consumer, by identity, and token secret, and dropped when the consumer is unregistered;
+     * keyed instances refuse to sign from then on.
+     */
+    public SignatureMethod withDerivedKey(final RegisteredConsumer consumer, final String tokenSecret)
+            throws SigningException {
+
+        final SigningKey signingKey = new SigningKey(consumer, tokenSecret);
+        KeyedMac keyed = macs.get(signingKey);
+        if (keyed == null) {
+            keyed = macs.putIfAbsent(signingKey, new KeyedMac(algorithm, consumer, () -> {
+                try {
+                    return consumer.derivedKey(tokenSecret);
+                } catch (IllegalStateException e) {
+                    throw new SigningException("Consumer was unregistered", e);
+                }
+            }));
+            consumer.onRelease(new Eviction(macs, consumer));
+        }
+        if (consumer.isDestroyed()) {
+            throw new SigningException("Consumer was unregistered", null);
+        }
+
+        return withMac(keyed);
+    }
+
+    @Override
+    public String signatureOf(String baseString) throws SigningException {
+        final ByteString signature = ByteString.of(newMac().doFinal(baseString.getBytes(UTF_8)));
+
+        return signature.base64();
+    }
+
+    @Override
+    public String signatureOf(SignatureBaseString baseString) throws SigningException {
+        return ByteString.of(sign(baseString)).base64();
+    }
+
+    @Override
+    public void signatureOf(SignatureBaseString baseString, BufferedSink encodedSink) throws SigningException {
+        final byte[] signature = sign(baseString);
+        try {
+            Base64Encoder.encodePercentEncoded(signature, encodedSink);
+        } catch (IOException e) {
+            throw new SigningException("Cannot write signature", e);
+        }
+    }
+
+    private byte[] sign(SignatureBaseString baseString) throws SigningException {
+        final Mac mac = newMac();
+        final BufferedSink sink = Okio.buffer(UpdateSink.of(mac));
+        try {
+            baseString.writeTo(sink);
+            sink.flush();
+        } catch (IOException e) {
+            throw new SigningException("Cannot write base string", e);
+        }
+
+        return mac.doFinal();
+    }
+
+    protected Mac newMac() throws SigningException {
+        if (mac == null) {
+            throw new SigningException("No key, obtain a keyed instance from withKey() first", null);
+        }
+
+        return mac.newMac();
+    }
+
+
+    /** Cache key of consumer secret, or registered consumer, and token secret */
+    protected static final class SigningKey {
+        private final Object consumerSecret;
+        private final String tokenSecret;
+
+        SigningKey(Object consumerSecret, String tokenSecret) {
+            this.consumerSecret = consumerSecret != null ? consumerSecret : "";
+            this.tokenSecret = tokenSecret != null ? tokenSecret : "";
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SigningKey)) {
+                return false;
+            }
+
+            final SigningKey other = (SigningKey) o;
+            return consumerSecret.equals(other.consumerSecret) && tokenSecret.equals(other.tokenSecret);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * consumerSecret.hashCode() + tokenSecret.hashCode();
+        }
+    }
+
+    /** Source of the raw key bytes, which the caller zeroes once the {@link Mac} is initialized */
+    protected interface KeySource {
+        byte[] key() throws SigningException;
+    }
+
+    /**
+     * An initialized prototype {@link Mac}. It is never updated itself; every signature works on a
+     * clone, so the HMAC key schedule and JCE provider lookup are not repeated per request. The key
+     * is not kept; when the provider cannot clone, it is derived again for every fresh instance.
+     */
+    protected static final class KeyedMac {
+        private final String algorithm;
+        private final RegisteredConsumer owner;
+        private final KeySource keys;
+        private final Mac prototype;
+        private final boolean cloneable;
+
+        KeyedMac(String algorithm, RegisteredConsumer owner, KeySource keys) throws SigningException {
+            this.algorithm = algorithm;
+            this.owner = owner;
+            this.keys = keys;
+            this.prototype = init(null);
+            this.cloneable = isCloneable(prototype);
+        }
+
+        Mac newMac() throws SigningException {
+            if (owner != null && owner.isDestroyed()) {
+                throw new SigningException("Consumer was unregistered", null);
+            }
+            if (!cloneable) {
+                // provider does not support cloning, fall back to a fresh instance
+                return init(prototype.getProvider());
+            }
+
+            try {
+                return (Mac) prototype.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new SigningException("Cannot create Mac", e);
+            }
+        }
+
+        private Mac init(Provider provider) throws SigningException {
+            final byte[] key = keys.key();
+            try {
+                final Mac mac = provider != null ? Mac.getInstance(algorithm, provider) : Mac.getInstance(algorithm);
+                mac.init(new SecretKeySpec(key, algorithm));
+                return mac;
+            } catch (NoSuchAlgorithmException e) {
+                throw new SigningException("Algorithm not supported", e);
+            } catch (InvalidKeyException e) {
+                throw new SigningException("Invalid key", e);
+            } finally {
+                Arrays.fill(key, (byte) 0);
+            }
+        }
+
+        private static boolean isCloneable(Mac mac) {
+            try {
+                mac.clone();
+                return true;
+            } catch (CloneNotSupportedException e) {
+                return false;
+            }
+        }
+    }
+
+    /** Drops the cached instances of a consumer once it is unregistered; one per cache and consumer */
+    private static final class Eviction implements Runnable {
+        private final BoundedCache<SigningKey, KeyedMac> macs;
+        private final RegisteredConsumer consumer;
+
+        Eviction(BoundedCache<SigningKey, KeyedMac> macs, RegisteredConsumer consumer) {
+            this.macs = macs;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void run() {
+            macs.removeIf(key -> key.consumerSecret == consumer);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Eviction && ((Eviction) o).macs == macs && ((Eviction) o).consumer == consumer;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(macs) + consumer.hashCode();
+        }
+    }
+}
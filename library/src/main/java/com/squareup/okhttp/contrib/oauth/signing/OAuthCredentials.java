@@ -0,0 +1,154 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+import com.squareup.okhttp.contrib.oauth.OAuthConsumer;
+import com.squareup.okhttp.contrib.oauth.OAuthService;
+import com.squareup.okhttp.contrib.oauth.consumer.RotatingConsumer;
+import com.squareup.okhttp.contrib.oauth.token.RotatingToken;
+import com.squareup.okhttp.contrib.oauth.token.Token;
+
+/**
+ * Consumer and token that a request is signed with. Tag a request with credentials to have the
+ * {@link SigningInterceptor} sign it, or with {@link #NONE} to have it sent as is:
+ *
+ * <pre>
+ * new Request.Builder()
+ *     .url(...)
+ *     .tag(new OAuthCredentials(consumer, token))
+ *     .build();
+ * </pre>
+ *
+ * The signing context is derived once per credentials and service, so long-lived credentials,
+ * e.g. one per user, make signing a request cheap. {@link #stamped()} copies carry the time the
+ * request was created, for the {@link SigningMetrics} of the queue delay.
+ *
+ * <p>A {@link RotatingConsumer} or {@link RotatingToken} is resolved to its current snapshot, and
+ * the context is derived anew once either is rotated.
+ */
+public final class OAuthCredentials {
+    /** Opts a request out of signing */
+    public static final OAuthCredentials NONE = new OAuthCredentials(null, null);
+
+    private final OAuthConsumer consumer;
+    private final Token token;
+    private final OAuthCredentials parent;
+    private final long createdNanos;
+    private volatile Derived derived;
+
+    /**
+     * @param consumer Consumer
+     * @param token Token, or null to sign without a token
+     */
+    public OAuthCredentials(OAuthConsumer consumer, Token token) {
+        this(consumer, token, null, -1);
+    }
+
+    private OAuthCredentials(OAuthConsumer consumer, Token token, OAuthCredentials parent, long createdNanos) {
+        this.consumer = consumer;
+        this.token = token;
+        this.parent = parent;
+        this.createdNanos = createdNanos;
+    }
+
+    /**
+     * Returns a copy stamped with the current time, to tag one request with. The copy shares the
+     * signing context of these credentials.
+     */
+    public OAuthCredentials stamped() {
+        return new OAuthCredentials(consumer, token, parent != null ? parent : this, System.nanoTime());
+    }
+
+    /** Returns the {@link System#nanoTime()} of {@link #stamped()}, or -1 */
+    public long createdNanos() {
+        return createdNanos;
+    }
+
+    public OAuthConsumer consumer() {
+        return consumer;
+    }
+
+    /** Returns the token, or null */
+    public Token token() {
+        return token;
+    }
+
+    /** Returns the signing context of these credentials for the service, derived on first use */
+    public SigningContext signingContext(OAuthService service) throws SigningException {
+        if (parent != null) {
+            return parent.signingContext(service);
+        }
+
+        final OAuthConsumer consumerSnapshot = RotatingConsumer.snapshotOf(consumer);
+        final Token tokenSnapshot = RotatingToken.snapshotOf(token);
+
+        Derived current = derived;
+        if (current == null || current.service != service
+                || current.consumer != consumerSnapshot || current.token != tokenSnapshot) {
+            current = new Derived(service, consumerSnapshot, tokenSnapshot,
+                    service.signingContext(consumerSnapshot, tokenSnapshot));
+            derived = current;
+        }
+
+        return current.context;
+    }
+
+    /**
+     * Returns credentials of the previous snapshots of a rotated consumer or token, while their
+     * overlap window lasts; null if nothing was rotated with an overlap.
+     */
+    public OAuthCredentials previous() {
+        if (parent != null) {
+            return parent.previous();
+        }
+
+        final OAuthConsumer previousConsumer = consumer instanceof RotatingConsumer
+                ? ((RotatingConsumer) consumer).previous()
+                : null;
+        final Token previousToken = token instanceof RotatingToken
+                ? ((RotatingToken) token).previous()
+                : null;
+        if (previousConsumer == null && previousToken == null) {
+            return null;
+        }
+
+        return new OAuthCredentials(previousConsumer != null ? previousConsumer : consumer,
+                previousToken != null ? previousToken : token);
+    }
+
+    private static final class Derived {
+        final OAuthService service;
+        final OAuthConsumer consumer;
+        final Token token;
+        final SigningContext context;
+
+        Derived(OAuthService service, OAuthConsumer consumer, Token token, SigningContext context) {
+            this.service = service;
+            this.consumer = consumer;
+            this.token = token;
+            this.context = context;
+        }
+    }
+}
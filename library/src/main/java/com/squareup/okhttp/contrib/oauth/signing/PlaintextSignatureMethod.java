@@ -27,29 +27,55 @@ package com.squareup.okhttp.contrib.oauth.signing;
 import com.squareup.okhttp.contrib.oauth.OAuth;
 import com.squareup.okhttp.contrib.oauth.encoder.PercentEncoder;
 
+import java.io.IOException;
+
 import okio.Buffer;
+import okio.BufferedSink;
 
 public class PlaintextSignatureMethod implements SignatureMethod {
 
-    private String consumerSecret;
-    private String tokenSecret;
+    /** The signature does not depend on the request, a keyed instance computes it once */
+    private final String signature;
+
+    public PlaintextSignatureMethod() {
+        this.signature = null;
+    }
+
+    protected PlaintextSignatureMethod(String consumerSecret, String tokenSecret) {
+        final Buffer signature = PercentEncoder.encode(consumerSecret, new Buffer()).writeByte('&');
+        if (tokenSecret != null) {
+            PercentEncoder.encode(tokenSecret, signature);
+        }
+
+        this.signature = signature.readUtf8();
+    }
 
     @Override
     public SignatureMethod withKey(String consumerSecret, String tokenSecret) throws SigningException {
-        this.consumerSecret = consumerSecret;
-        this.tokenSecret = tokenSecret;
-
-        return this;
+        return new PlaintextSignatureMethod(consumerSecret, tokenSecret);
     }
 
     @Override
     public String signatureOf(String baseString) throws SigningException {
+        if (signature == null) {
+            throw new SigningException("No key, obtain a keyed instance from withKey() first", null);
+        }
 
-        return new Buffer()
-                .writeUtf8(PercentEncoder.encode(consumerSecret))
-                .writeByte('&')
-                .writeUtf8(PercentEncoder.encode(tokenSecret))
-                .readUtf8();
+        return signature;
+    }
+
+    @Override
+    public String signatureOf(SignatureBaseString baseString) throws SigningException {
+        return signatureOf((String) null);
+    }
+
+    @Override
+    public void signatureOf(SignatureBaseString baseString, BufferedSink encodedSink) throws SigningException {
+        try {
+            PercentEncoder.encode(signatureOf((String) null), encodedSink);
+        } catch (IOException e) {
+            throw new SigningException("Cannot write signature", e);
+        }
     }
 
     @Override
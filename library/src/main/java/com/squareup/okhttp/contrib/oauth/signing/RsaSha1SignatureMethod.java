@@ -26,16 +26,28 @@ package com.squareup.okhttp.contrib.oauth.signing;
 
 import com.squareup.okhttp.contrib.oauth.OAuth;
 
-public class RsaSha1SignatureMethod implements SignatureMethod {
+import java.security.PrivateKey;
 
-    @Override
-    public SignatureMethod withKey(String consumerSecret, String tokenSecret) throws SigningException {
-        throw new SigningException("Not yet implemented", null);
+/** RSA-SHA1 signatures, see {@link RsaSignatureMethod} */
+public class RsaSha1SignatureMethod extends RsaSignatureMethod {
+    private static final String SIGNATURE_TYPE = "SHA1withRSA";
+
+    /** @param privateKey PEM encoded RSA private key of the consumer */
+    public RsaSha1SignatureMethod(String privateKey) throws SigningException {
+        this(parsePrivateKey(privateKey));
     }
 
-    @Override
-    public String signatureOf(String baseString) throws SigningException {
-        throw new SigningException("Not yet implemented", null);
+    /** @param privateKey RSA private key of the consumer */
+    public RsaSha1SignatureMethod(PrivateKey privateKey) throws SigningException {
+        this(privateKey, DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * @param privateKey RSA private key of the consumer
+     * @param poolSize Maximum number of idle {@link java.security.Signature} objects that are kept
+     */
+    public RsaSha1SignatureMethod(PrivateKey privateKey, int poolSize) throws SigningException {
+        super(SIGNATURE_TYPE, privateKey, poolSize);
     }
 
     @Override
@@ -0,0 +1,57 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+import com.squareup.okhttp.contrib.oauth.OAuth;
+
+import java.security.PrivateKey;
+
+/** RSA-SHA256 signatures, see {@link RsaSignatureMethod} */
+public class RsaSha256SignatureMethod extends RsaSignatureMethod {
+    private static final String SIGNATURE_TYPE = "SHA256withRSA";
+
+    /** @param privateKey PEM encoded RSA private key of the consumer */
+    public RsaSha256SignatureMethod(String privateKey) throws SigningException {
+        this(parsePrivateKey(privateKey));
+    }
+
+    /** @param privateKey RSA private key of the consumer */
+    public RsaSha256SignatureMethod(PrivateKey privateKey) throws SigningException {
+        this(privateKey, DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * @param privateKey RSA private key of the consumer
+     * @param poolSize Maximum number of idle {@link java.security.Signature} objects that are kept
+     */
+    public RsaSha256SignatureMethod(PrivateKey privateKey, int poolSize) throws SigningException {
+        super(SIGNATURE_TYPE, privateKey, poolSize);
+    }
+
+    @Override
+    public String methodName() {
+        return OAuth.SIGNATURE_METHOD_VALUE_RSA_SHA256;
+    }
+}
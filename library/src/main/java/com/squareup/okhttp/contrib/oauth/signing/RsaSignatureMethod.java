@@ -0,0 +1,234 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+import com.squareup.okhttp.contrib.oauth.encoder.Base64Encoder;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.InvalidKeyException;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+import okio.Okio;
+
+/**
+ * Base class of the RSA signature methods, RFC 5849 section 3.4.3. Requests are signed with the
+ * consumer's RSA private key, which is parsed once; consumer and token secret are not used.
+ * Initialized {@link Signature} objects are kept in a bounded pool, so concurrent requests neither
+ * repeat the provider lookup and {@code initSign} nor contend on a single instance.
+ */
+public abstract class RsaSignatureMethod implements SignatureMethod {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    protected static final int DEFAULT_POOL_SIZE = 16;
+
+    /** DER prefix turning a PKCS#1 RSAPrivateKey into a PKCS#8 PrivateKeyInfo */
+    private static final ByteString PKCS1_PREFIX =
+            ByteString.decodeHex("020100300d06092a864886f70d0101010500");
+
+    /** JCE algorithm name, e.g. 'SHA1withRSA' */
+    protected final String algorithm;
+    protected final PrivateKey privateKey;
+    private final BlockingQueue<Signature> pool;
+
+    /**
+     * @param algorithm JCE algorithm name
+     * @param privateKey RSA private key
+     * @param poolSize Maximum number of idle {@link Signature} objects that are kept
+     */
+    protected RsaSignatureMethod(String algorithm, PrivateKey privateKey, int poolSize) throws SigningException {
+        this.algorithm = algorithm;
+        this.privateKey = privateKey;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+
+        // fail fast on unsupported algorithms and invalid keys
+        pool.offer(newSignature());
+    }
+
+    /**
+     * Parses a PEM encoded RSA private key, either PKCS#8 ({@code BEGIN PRIVATE KEY}) or PKCS#1
+     * ({@code BEGIN RSA PRIVATE KEY}).
+     */
+    public static PrivateKey parsePrivateKey(String pem) throws SigningException {
+        final boolean pkcs1 = pem.contains("BEGIN RSA PRIVATE KEY");
+        final StringBuilder base64 = new StringBuilder(pem.length());
+        for (String line : pem.split("\r?\n")) {
+            if (!line.startsWith("-----")) {
+                base64.append(line.trim());
+            }
+        }
+
+        final ByteString der = ByteString.decodeBase64(base64.toString());
+        if (der == null) {
+            throw new SigningException("Invalid PEM encoding", null);
+        }
+
+        try {
+            final byte[] pkcs8 = pkcs1 ? pkcs8Of(der) : der.toByteArray();
+            return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(pkcs8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new SigningException("Algorithm not supported", e);
+        } catch (InvalidKeySpecException e) {
+            throw new SigningException("Invalid key", e);
+        }
+    }
+
+    /** Wraps a PKCS#1 key: SEQUENCE { INTEGER 0, AlgorithmIdentifier rsaEncryption, OCTET STRING } */
+    private static byte[] pkcs8Of(ByteString pkcs1) {
+        final Buffer octetString = new Buffer().writeByte(0x04);
+        writeDerLength(octetString, pkcs1.size());
+        octetString.write(pkcs1);
+
+        final Buffer sequence = new Buffer().writeByte(0x30);
+        writeDerLength(sequence, PKCS1_PREFIX.size() + octetString.size());
+
+        sequence.write(PKCS1_PREFIX).write(octetString, octetString.size());
+
+        return sequence.readByteArray();
+    }
+
+    private static void writeDerLength(Buffer buffer, long length) {
+        if (length < 0x80) {
+            buffer.writeByte((int) length);
+        } else if (length <= 0xff) {
+            buffer.writeByte(0x81).writeByte((int) length);
+        } else if (length <= 0xffff) {
+            buffer.writeByte(0x82).writeShort((int) length);
+        } else {
+            buffer.writeByte(0x83).writeByte((int) (length >> 16)).writeShort((int) length);
+        }
+    }
+
+    /** Returns this instance, RSA signatures only depend on the private key */
+    @Override
+    public SignatureMethod withKey(String consumerSecret, String tokenSecret) throws SigningException {
+        return this;
+    }
+
+    @Override
+    public String signatureOf(String baseString) throws SigningException {
+        final Signature signature = acquire();
+        try {
+            signature.update(baseString.getBytes(UTF_8));
+            final ByteString signed = ByteString.of(signature.sign());
+            pool.offer(signature); // sign() resets the object, ready for the next use
+
+            return signed.base64();
+        } catch (SignatureException e) {
+            throw new SigningException("Cannot sign", e);
+        }
+    }
+
+    @Override
+    public String signatureOf(SignatureBaseString baseString) throws SigningException {
+        return ByteString.of(sign(baseString)).base64();
+    }
+
+    @Override
+    public void signatureOf(SignatureBaseString baseString, BufferedSink encodedSink) throws SigningException {
+        final byte[] signature = sign(baseString);
+        try {
+            Base64Encoder.encodePercentEncoded(signature, encodedSink);
+        } catch (IOException e) {
+            throw new SigningException("Cannot write signature", e);
+        }
+    }
+
+    private byte[] sign(SignatureBaseString baseString) throws SigningException {
+        final Signature signature = acquire();
+        try {
+            final BufferedSink sink = Okio.buffer(UpdateSink.of(signature));
+            baseString.writeTo(sink);
+            sink.flush();
+            final byte[] signed = signature.sign();
+            pool.offer(signature); // sign() resets the object, ready for the next use
+
+            return signed;
+        } catch (SignatureException e) {
+            throw new SigningException("Cannot sign", e);
+        } catch (IOException e) {
+            throw new SigningException("Cannot write base string", e);
+        }
+    }
+
+    /**
+     * Signs a batch of base strings, spreading the work across the cores of the common fork-join
+     * pool. Signatures are returned in the order of the base strings.
+     */
+    public List<String> signaturesOf(final List<SignatureBaseString> baseStrings) throws SigningException {
+        final String[] signatures = new String[baseStrings.size()];
+        final AtomicReference<SigningException> failure = new AtomicReference<>();
+        IntStream.range(0, signatures.length).parallel().forEach(i -> {
+            if (failure.get() != null) {
+                return;
+            }
+
+            try {
+                signatures[i] = signatureOf(baseStrings.get(i));
+            } catch (SigningException e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        return Arrays.asList(signatures);
+    }
+
+    private Signature acquire() throws SigningException {
+        final Signature pooled = pool.poll();
+
+        return pooled != null ? pooled : newSignature();
+    }
+
+    protected Signature newSignature() throws SigningException {
+        try {
+            final Signature signature = Signature.getInstance(algorithm);
+            signature.initSign(privateKey);
+
+            return signature;
+        } catch (NoSuchAlgorithmException e) {
+            throw new SigningException("Algorithm not supported", e);
+        } catch (InvalidKeyException e) {
+            throw new SigningException("Invalid key", e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+import com.squareup.okhttp.contrib.oauth.encoder.PercentEncoder;
+import com.squareup.okhttp.contrib.oauth.request.ParameterList;
+
+import java.io.IOException;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ByteString;
+
+/**
+ * The signature base string of a request, RFC 5849 section 3.4.1. Instead of materializing the
+ * string, {@link #writeTo(BufferedSink)} streams it into a sink, e.g. one that updates a
+ * {@link javax.crypto.Mac}.
+ */
+public class SignatureBaseString {
+
+    protected final String verb;
+    protected final ByteString encodedBaseUrl;
+    protected final ParameterList parameters;
+
+    /**
+     * @param verb HTTP method
+     * @param baseUrl Base string URI, without query and fragment
+     * @param parameters Request parameters, sorted
+     */
+    public SignatureBaseString(String verb, String baseUrl, ParameterList parameters) {
+        this(verb, ByteString.encodeUtf8(PercentEncoder.encode(baseUrl)), parameters);
+    }
+
+    /**
+     * @param verb HTTP method
+     * @param encodedBaseUrl Base string URI, percent-encoded
+     * @param parameters Request parameters, sorted
+     */
+    public SignatureBaseString(String verb, ByteString encodedBaseUrl, ParameterList parameters) {
+        this.verb = verb;
+        this.encodedBaseUrl = encodedBaseUrl;
+        this.parameters = parameters;
+    }
+
+    /** Writes the base string to the sink */
+    public void writeTo(BufferedSink sink) throws IOException {
+        sink.writeUtf8(verb)
+                .writeByte('&')
+                .write(encodedBaseUrl)
+                .writeByte('&');
+
+        // The normalized parameter string is percent-encoded a second time: the '=' and '&'
+        // separators become "%3D" and "%26", names and values are encoded again in place
+        for (int i = 0, size = parameters.size(); i < size; i++) {
+            if (i > 0) {
+                sink.writeUtf8("%26");
+            }
+
+            PercentEncoder.encode(parameters.encodedName(i), sink);
+            sink.writeUtf8("%3D");
+            PercentEncoder.encode(parameters.encodedValue(i), sink);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final Buffer buffer = new Buffer();
+        try {
+            writeTo(buffer);
+        } catch (IOException e) { // a buffer simply MUST NOT fail
+            throw new AssertionError(e);
+        }
+
+        return buffer.readUtf8();
+    }
+}
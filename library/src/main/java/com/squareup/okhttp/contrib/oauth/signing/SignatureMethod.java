@@ -24,23 +24,27 @@
 
 package com.squareup.okhttp.contrib.oauth.signing;
 
+import okio.BufferedSink;
+
 /**
  * Abstraction for creating oauth signatures
  */
 public interface SignatureMethod {
 
     /**
-     * Initializes the signing key used by this instance.
+     * Returns an instance that signs with the given key. The returned instance is immutable and
+     * safe to share between threads; this instance is left unchanged.
      *
      * @param consumerSecret Consumer secret
      * @param tokenSecret Token secret
-     * @return Self instance for method chaining
+     * @return Keyed instance
      * @throws SigningException
      */
     SignatureMethod withKey(String consumerSecret, String tokenSecret) throws SigningException;
 
     /**
-     * Creates a signature of the given base string.
+     * Creates a signature of the given base string. Requires a keyed instance, see
+     * {@link #withKey(String, String)}.
      *
      * @param baseString Base string input
      * @return Signature string
@@ -48,6 +52,26 @@ public interface SignatureMethod {
      */
     String signatureOf(String baseString) throws SigningException;
 
+    /**
+     * Creates a signature of the given base string, streaming it into the signing algorithm.
+     * Requires a keyed instance, see {@link #withKey(String, String)}.
+     *
+     * @param baseString Base string input
+     * @return Signature string
+     * @throws SigningException
+     */
+    String signatureOf(SignatureBaseString baseString) throws SigningException;
+
+    /**
+     * Creates a signature of the given base string and writes it, percent-encoded, to the sink.
+     * Requires a keyed instance, see {@link #withKey(String, String)}.
+     *
+     * @param baseString Base string input
+     * @param encodedSink Receives the percent-encoded signature
+     * @throws SigningException
+     */
+    void signatureOf(SignatureBaseString baseString, BufferedSink encodedSink) throws SigningException;
+
     /**
      * Returns the name of the signature method
      *
@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+import com.squareup.okhttp.contrib.oauth.OAuth;
+import com.squareup.okhttp.contrib.oauth.OAuthConsumer;
+import com.squareup.okhttp.contrib.oauth.request.HeaderTemplate;
+import com.squareup.okhttp.contrib.oauth.request.ParameterList;
+import com.squareup.okhttp.contrib.oauth.token.Token;
+
+/**
+ * Everything needed to sign requests for one consumer and token, see
+ * {@link com.squareup.okhttp.contrib.oauth.OAuthService#signingContext(OAuthConsumer, Token)}.
+ * The keyed signature method and the percent-encoded {@code oauth_consumer_key},
+ * {@code oauth_signature_method}, {@code oauth_token} and {@code oauth_version} params are derived
+ * once. A context is immutable and may be used by many threads to sign any number of requests.
+ */
+public final class SigningContext {
+
+    private final OAuthConsumer consumer;
+    private final Token token;
+    private final SignatureMethod signatureMethod;
+    private final ParameterList oauthParameters;
+    private volatile HeaderTemplate headerTemplate;
+    private volatile HeaderTemplate bodyHashHeaderTemplate;
+
+    /**
+     * @param consumer Consumer
+     * @param token Token, or null
+     * @param signatureMethod Signature method keyed with the consumer and token secret
+     */
+    public SigningContext(OAuthConsumer consumer, Token token, SignatureMethod signatureMethod) {
+        this.consumer = consumer;
+        this.token = hasValue(token) ? token : null;
+        this.signatureMethod = signatureMethod;
+
+        final ParameterList params = new ParameterList(4)
+                .add(OAuth.CONSUMER_KEY, consumer.key())
+                .add(OAuth.SIGNATURE_METHOD, signatureMethod.methodName());
+        if (this.token != null) {
+            params.add(OAuth.TOKEN, this.token.value());
+        }
+        this.oauthParameters = params.add(OAuth.VERSION, OAuth.VERSION_VALUE_10).freeze();
+    }
+
+    private static boolean hasValue(Token token) {
+        return token != null && token.value() != null && token.value().length() > 0;
+    }
+
+    public OAuthConsumer consumer() {
+        return consumer;
+    }
+
+    /** Returns the token, or null if requests are signed without a token */
+    public Token token() {
+        return token;
+    }
+
+    /** Returns the signature method, keyed with consumer and token secret */
+    public SignatureMethod signatureMethod() {
+        return signatureMethod;
+    }
+
+    /** Returns the percent-encoded oauth_* params that are the same for every request */
+    public ParameterList oauthParameters() {
+        return oauthParameters;
+    }
+
+    /**
+     * Returns the precompiled Authorization header for requests signed with this context, with
+     * slots for nonce, signature and timestamp. Compiled on first use.
+     */
+    public HeaderTemplate headerTemplate() {
+        HeaderTemplate template = headerTemplate;
+        if (template == null) {
+            template = HeaderTemplate.compile(oauthParameters, OAuth.NONCE, OAuth.SIGNATURE, OAuth.TIMESTAMP);
+            headerTemplate = template;
+        }
+
+        return template;
+    }
+
+    /** Returns the precompiled Authorization header with an additional slot for the body hash */
+    public HeaderTemplate bodyHashHeaderTemplate() {
+        HeaderTemplate template = bodyHashHeaderTemplate;
+        if (template == null) {
+            template = HeaderTemplate.compile(oauthParameters,
+                    OAuth.BODY_HASH, OAuth.NONCE, OAuth.SIGNATURE, OAuth.TIMESTAMP);
+            bodyHashHeaderTemplate = template;
+        }
+
+        return template;
+    }
+}
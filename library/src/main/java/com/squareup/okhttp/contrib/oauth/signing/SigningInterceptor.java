@@ -27,32 +27,95 @@ package com.squareup.okhttp.contrib.oauth.signing;
 import com.squareup.okhttp.Interceptor;
 import com.squareup.okhttp.Request;
 import com.squareup.okhttp.Response;
+import com.squareup.okhttp.contrib.oauth.OAuth;
 import com.squareup.okhttp.contrib.oauth.OAuthService;
 import com.squareup.okhttp.contrib.oauth.request.OAuthRequest;
 
 import java.io.IOException;
 
-/** OK HTTP interceptor that signs requests */
+/**
+ * OK HTTP interceptor that signs requests. The credentials are taken from the request tag, see
+ * {@link OAuthCredentials}, or else from the {@link CredentialsResolver}. Requests tagged with
+ * {@link OAuthCredentials#NONE}, and requests without credentials, are passed on untouched.
+ *
+ * <p>Install it as a network interceptor to sign late: nonce, timestamp and signature are created
+ * once a connection is acquired, however long the call waited in the dispatcher queue, and every
+ * redirect and retry is signed anew.
+ */
 public class SigningInterceptor implements Interceptor {
 
-    protected OAuthService service;
+    protected final OAuthService service;
+    protected final CredentialsResolver resolver;
+    protected volatile SigningMetrics metrics;
+
+    /** Signs requests that are tagged with credentials */
+    public SigningInterceptor(OAuthService service) {
+        this(service, null);
+    }
+
+    /**
+     * @param service Service that signs requests
+     * @param resolver Resolves the credentials of untagged requests, or null
+     */
+    public SigningInterceptor(OAuthService service, CredentialsResolver resolver) {
+        if (service == null) throw new NullPointerException("service == null");
+        this.service = service;
+        this.resolver = resolver;
+    }
 
     @Override
     public Response intercept(Chain chain) throws IOException {
         final Request request = chain.request();
-        if (service == null || request.header("X-OKHttp-OAuth-Authorized") != null) {
+        final OAuthCredentials credentials = credentialsFor(request);
+        if (credentials == null || credentials == OAuthCredentials.NONE) {
             return chain.proceed(request);
         }
 
-        return chain.proceed(signed(request));
+        final OAuthRequest signed = signed(request, credentials);
+        final SigningMetrics metrics = this.metrics;
+        if (metrics != null) {
+            report(metrics, signed, credentials);
+        }
+
+        return chain.proceed(signed.authorizedRequest());
+    }
+
+    /** Sets the metrics that receive the timings of signed requests, or null */
+    public void metrics(SigningMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /** Returns the credentials of the request, or null */
+    protected OAuthCredentials credentialsFor(Request request) throws SigningException {
+        final Object tag = request.tag();
+        if (tag instanceof OAuthCredentials) {
+            return (OAuthCredentials) tag;
+        }
+
+        return resolver != null ? resolver.credentialsFor(request) : null;
     }
 
     /** Returns a oauth-signed request */
-    protected Request signed(Request request) throws SigningException {
-        OAuthRequest req = new OAuthRequest(request);
+    protected OAuthRequest signed(Request request, OAuthCredentials credentials) throws SigningException {
+        final OAuthRequest req = new OAuthRequest(request);
+
+        return service.authorizeRequest(req, credentials.signingContext(service));
+    }
+
+    private void report(SigningMetrics metrics, OAuthRequest signed, OAuthCredentials credentials) {
+        final long queueDelay = credentials.createdNanos() != -1
+                ? System.nanoTime() - credentials.createdNanos()
+                : -1;
+
+        // Age on the local clock: take back the learned offset of the provider's clock
+        final TimestampGenerator timestamps = service.timestampGenerator();
+        final long offset = timestamps instanceof SkewLearningTimestampGenerator
+                ? ((SkewLearningTimestampGenerator) timestamps).offsetMillis()
+                : 0;
+        final String timestamp = signed.oauth(OAuth.TIMESTAMP);
+        final long age = System.currentTimeMillis() - (Long.parseLong(timestamp) * 1000 - offset);
 
-        // TODO: need the token and consumer here ...
-        return service.authorizeRequest(req, null, null).authorizedRequest();
+        metrics.signed(signed.authorizedRequest(), queueDelay, age);
     }
 
 }
@@ -0,0 +1,194 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+import com.squareup.okhttp.Authenticator;
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import com.squareup.okhttp.contrib.oauth.cache.CoarseClock;
+
+import java.io.IOException;
+import java.net.Proxy;
+import java.util.Date;
+
+import okio.BufferedSource;
+
+/**
+ * Creates timestamps on the clock of one provider. The offset between the local clock and the
+ * provider's clock is learned from the {@code Date} header of responses, see
+ * {@link #interceptor()}, and from {@code oauth_problem=timestamp_refused} responses, see
+ * {@link #authenticator()}, which also re-signs and retries the refused request once. Timestamps are read from the
+ * {@link CoarseClock}.
+ *
+ * <pre>
+ * SkewLearningTimestampGenerator timestamps = new SkewLearningTimestampGenerator();
+ * okHttpClient.networkInterceptors().add(timestamps.interceptor());
+ * okHttpClient.setAuthenticator(timestamps.authenticator());
+ * </pre>
+ */
+public class SkewLearningTimestampGenerator implements TimestampGenerator {
+    private static final String RECEIVED_MILLIS = "OkHttp-Received-Millis";
+    private static final String TIMESTAMP_REFUSED = "timestamp_refused";
+    private static final String ACCEPTABLE_TIMESTAMPS = "oauth_acceptable_timestamps=";
+    private static final long PEEK_BYTES = 4096;
+
+    /** Offsets below the resolution of the Date header are not learned */
+    private static final long MIN_CORRECTION_MILLIS = 1000;
+
+    protected volatile long offsetMillis;
+
+    @Override
+    public long create() {
+        return (CoarseClock.currentTimeMillis() + offsetMillis) / 1000L;
+    }
+
+    /** Returns the learned offset of the provider's clock, in milliseconds */
+    public long offsetMillis() {
+        return offsetMillis;
+    }
+
+    /** Learns the offset from the Date header of the response; returns true if it changed */
+    public boolean learn(Response response) {
+        final Date date = response.headers().getDate("Date");
+        if (date == null) {
+            return false;
+        }
+
+        // The Date header is truncated to seconds, assume the middle of that second
+        return correct(date.getTime() + 500 - receivedMillis(response));
+    }
+
+    /**
+     * Learns the offset from a {@code timestamp_refused} response; returns true if the response
+     * refused the timestamp. The provider's range of acceptable timestamps is preferred, the Date
+     * header is used otherwise.
+     */
+    public boolean learnRefused(Response response) throws IOException {
+        final String problem = problemOf(response);
+        if (problem == null || !problem.contains(TIMESTAMP_REFUSED)) {
+            return false;
+        }
+
+        final int start = problem.indexOf(ACCEPTABLE_TIMESTAMPS);
+        if (start != -1) {
+            int end = start + ACCEPTABLE_TIMESTAMPS.length();
+            while (end < problem.length() && "0123456789-".indexOf(problem.charAt(end)) != -1) {
+                end++;
+            }
+            final String range = problem.substring(start + ACCEPTABLE_TIMESTAMPS.length(), end);
+            final int dash = range.indexOf('-');
+            if (dash > 0) {
+                try {
+                    final long from = Long.parseLong(range.substring(0, dash));
+                    final long to = Long.parseLong(range.substring(dash + 1));
+                    offsetMillis = (from + to) * 500 - receivedMillis(response);
+                    return true;
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+
+        learn(response);
+        return true;
+    }
+
+    /** Returns a network interceptor that learns from every response */
+    public Interceptor interceptor() {
+        return new Interceptor() {
+            @Override
+            public Response intercept(Chain chain) throws IOException {
+                final Response response = chain.proceed(chain.request());
+                learn(response);
+
+                return response;
+            }
+        };
+    }
+
+    /**
+     * Returns an authenticator that retries a request once after its timestamp was refused. The
+     * retry is the unsigned user request, so the {@link SigningInterceptor} signs it again with a
+     * corrected timestamp.
+     */
+    public Authenticator authenticator() {
+        return new Authenticator() {
+            @Override
+            public Request authenticate(Proxy proxy, Response response) throws IOException {
+                Response prior = response.priorResponse();
+                for (; prior != null; prior = prior.priorResponse()) {
+                    if (prior.code() == 401) {
+                        return null; // Retried once already
+                    }
+                }
+
+                return learnRefused(response) ? response.request() : null;
+            }
+
+            @Override
+            public Request authenticateProxy(Proxy proxy, Response response) {
+                return null;
+            }
+        };
+    }
+
+    private boolean correct(long offset) {
+        if (Math.abs(offset - offsetMillis) < MIN_CORRECTION_MILLIS) {
+            return false;
+        }
+
+        offsetMillis = offset;
+        return true;
+    }
+
+    private static long receivedMillis(Response response) {
+        final String received = response.header(RECEIVED_MILLIS);
+        if (received != null) {
+            try {
+                return Long.parseLong(received);
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        return System.currentTimeMillis();
+    }
+
+    /** Returns the oauth_problem report of the WWW-Authenticate header or the body, or null */
+    private static String problemOf(Response response) throws IOException {
+        final String header = response.header("WWW-Authenticate");
+        if (header != null && header.contains("oauth_problem")) {
+            return header;
+        }
+
+        if (response.body() == null) {
+            return null;
+        }
+        final BufferedSource source = response.body().source();
+        source.request(PEEK_BYTES);
+        final String body = source.buffer().clone().readUtf8();
+
+        return body.contains("oauth_problem") ? body : null;
+    }
+}
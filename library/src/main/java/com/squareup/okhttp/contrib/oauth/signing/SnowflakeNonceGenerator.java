@@ -0,0 +1,130 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates nonces that are unique across a fleet of nodes without coordination. A nonce packs the
+ * current second, a node id and a per-second sequence number into 64 bits, Snowflake style, and
+ * renders them as 16 hex characters, followed by 8 hex characters of a random instance id:
+ *
+ * <pre>
+ * | seconds (32 bits) | node id (10 bits) | sequence (22 bits) | instance id (32 bits) |
+ * </pre>
+ *
+ * The instance id is drawn from {@link SecureRandom} once per generator, so two processes that
+ * share a node id, or one process restarted within the same second, do not repeat nonces.
+ *
+ * Each node may create about four million nonces per second. Beyond that, nonces fall back to a
+ * random {@link NonceGenerator}, whose nonces differ in length so they never collide with
+ * sequential ones.
+ */
+public class SnowflakeNonceGenerator implements NonceGenerator {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    public static final int NODE_ID_BITS = 10;
+    public static final int SEQUENCE_BITS = 22;
+    public static final int MAX_NODE_ID = (1 << NODE_ID_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long SECONDS_MASK = 0xffffffffL;
+
+    protected final long nodeId;
+    protected final int instanceId;
+    protected final TimestampGenerator timestamp;
+    protected final NonceGenerator fallback;
+
+    /** Last issued second and sequence number, {@code second << SEQUENCE_BITS | sequence} */
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * @param nodeId Unique id of this node, 0 to {@link #MAX_NODE_ID}
+     * @param timestamp Generator of the oauth_timestamp that is sent along with the nonce
+     */
+    public SnowflakeNonceGenerator(int nodeId, TimestampGenerator timestamp) {
+        this(nodeId, timestamp, new DefaultNonceGenerator());
+    }
+
+    /**
+     * @param nodeId Unique id of this node, 0 to {@link #MAX_NODE_ID}
+     * @param timestamp Generator of the oauth_timestamp that is sent along with the nonce
+     * @param fallback Creates nonces when the sequence of the current second is exhausted
+     */
+    public SnowflakeNonceGenerator(int nodeId, TimestampGenerator timestamp, NonceGenerator fallback) {
+        this(nodeId, timestamp, fallback, new SecureRandom().nextInt());
+    }
+
+    protected SnowflakeNonceGenerator(int nodeId, TimestampGenerator timestamp, NonceGenerator fallback,
+            int instanceId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId out of range [0, " + MAX_NODE_ID + "]: " + nodeId);
+        }
+
+        this.nodeId = nodeId;
+        this.timestamp = timestamp;
+        this.fallback = fallback;
+        this.instanceId = instanceId;
+    }
+
+    @Override
+    public String create() {
+        final long now = timestamp.create() & SECONDS_MASK;
+        for (;;) {
+            final long current = state.get();
+            final long second = current >>> SEQUENCE_BITS;
+            final long next;
+            if (now > second) {
+                next = now << SEQUENCE_BITS;
+            } else if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                // same second, or the clock went backwards: keep counting in the last second
+                next = current + 1;
+            } else {
+                return fallback.create();
+            }
+
+            if (state.compareAndSet(current, next)) {
+                return format((next >>> SEQUENCE_BITS) << 32
+                        | nodeId << SEQUENCE_BITS
+                        | next & SEQUENCE_MASK, instanceId);
+            }
+        }
+    }
+
+    private static String format(long nonce, int instanceId) {
+        final char[] chars = new char[24];
+        for (int i = chars.length - 1; i >= 16; i--) {
+            chars[i] = HEX_DIGITS[instanceId & 0xf];
+            instanceId >>>= 4;
+        }
+        for (int i = 15; i >= 0; i--) {
+            chars[i] = HEX_DIGITS[(int) (nonce & 0xf)];
+            nonce >>>= 4;
+        }
+
+        return new String(chars);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.contrib.oauth.OAuthConsumer;
+import com.squareup.okhttp.contrib.oauth.cache.BoundedCache;
+import com.squareup.okhttp.contrib.oauth.token.Token;
+import com.squareup.okhttp.contrib.oauth.token.TokenStore;
+
+/**
+ * Resolves credentials by looking up the token of the request's user in a {@link TokenStore}.
+ * Requests of users without a token are sent unsigned. Credentials are cached per stored token,
+ * so the signing context of a user is derived once while the token stays in the store.
+ */
+public class TokenStoreResolver implements CredentialsResolver {
+    private static final int DEFAULT_CACHE_SIZE = 4096;
+
+    /** Extracts the user id of a request */
+    public interface UserIdExtractor {
+
+        /** Returns the user id, or null for requests that are not signed */
+        String userIdOf(Request request);
+    }
+
+    protected final OAuthConsumer consumer;
+    protected final TokenStore tokens;
+    protected final UserIdExtractor userIds;
+    protected final BoundedCache<Token, OAuthCredentials> credentials;
+
+    public TokenStoreResolver(OAuthConsumer consumer, TokenStore tokens, UserIdExtractor userIds) {
+        this.consumer = consumer;
+        this.tokens = tokens;
+        this.userIds = userIds;
+        this.credentials = new BoundedCache<>(DEFAULT_CACHE_SIZE);
+    }
+
+    @Override
+    public OAuthCredentials credentialsFor(Request request) {
+        final String userId = userIds.userIdOf(request);
+        final Token token = userId != null ? tokens.get(userId) : null;
+        if (token == null) {
+            return null;
+        }
+
+        final OAuthCredentials cached = credentials.get(token);
+        return cached != null ? cached : credentials.putIfAbsent(token, new OAuthCredentials(consumer, token));
+    }
+}
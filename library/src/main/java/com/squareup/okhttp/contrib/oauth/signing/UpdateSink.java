@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.security.SignatureException;
+
+import javax.crypto.Mac;
+
+import okio.Buffer;
+import okio.Sink;
+import okio.Timeout;
+
+/**
+ * A sink that feeds all bytes written to it into a {@link Mac}, {@link Signature} or
+ * {@link MessageDigest}, through a scratch array of the given size.
+ */
+public final class UpdateSink implements Sink {
+    private final Update update;
+    private final byte[] scratch;
+
+    /** Receives the bytes written to an {@link UpdateSink} */
+    public interface Update {
+        void update(byte[] bytes, int offset, int length) throws IOException;
+    }
+
+    public UpdateSink(Update update, int scratchSize) {
+        this.update = update;
+        this.scratch = new byte[scratchSize];
+    }
+
+    public static UpdateSink of(Mac mac) {
+        return new UpdateSink(mac::update, 512);
+    }
+
+    public static UpdateSink of(Signature signature) {
+        return new UpdateSink((bytes, offset, length) -> {
+            try {
+                signature.update(bytes, offset, length);
+            } catch (SignatureException e) {
+                throw new SigningException("Signature not initialized", e);
+            }
+        }, 512);
+    }
+
+    /** Returns a sink with a larger scratch array, digests are fed whole request bodies */
+    public static UpdateSink of(MessageDigest digest) {
+        return new UpdateSink(digest::update, 8192);
+    }
+
+    @Override
+    public void write(Buffer source, long byteCount) throws IOException {
+        while (byteCount > 0) {
+            final int read = source.read(scratch, 0, (int) Math.min(byteCount, scratch.length));
+            if (read == -1) {
+                throw new IllegalArgumentException("byteCount > source.size()");
+            }
+
+            update.update(scratch, 0, read);
+            byteCount -= read;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+    }
+
+    @Override
+    public Timeout timeout() {
+        return Timeout.NONE;
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+}
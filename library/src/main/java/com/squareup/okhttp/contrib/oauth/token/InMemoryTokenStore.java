@@ -0,0 +1,217 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.token;
+
+import com.squareup.okhttp.contrib.oauth.cache.CoarseClock;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A token store in the heap, split into stripes by user id. Reads never lock. Writes lock only
+ * the stripe they evict from, once the stripe is full: idle tokens go first, then the least
+ * recently used of a few tokens sampled by a cursor that sweeps the stripe.
+ *
+ * <p>Tokens are held as {@link StoredToken}s. Hits, misses and evictions are counted.
+ */
+public class InMemoryTokenStore implements TokenStore {
+    private static final int SAMPLE_SIZE = 8;
+
+    protected final Stripe[] stripes;
+    protected final int maxStripeSize;
+    protected final long maxIdleMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize Maximum number of tokens
+     * @param maxIdle Tokens not read for this long are evicted, 0 to keep them
+     * @param unit Unit of {@code maxIdle}
+     */
+    public InMemoryTokenStore(int maxSize, long maxIdle, TimeUnit unit) {
+        this(maxSize, maxIdle, unit, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param maxSize Maximum number of tokens
+     * @param maxIdle Tokens not read for this long are evicted, 0 to keep them
+     * @param unit Unit of {@code maxIdle}
+     * @param concurrency Number of stripes, rounded up to a power of two
+     */
+    public InMemoryTokenStore(int maxSize, long maxIdle, TimeUnit unit, int concurrency) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0: " + maxSize);
+        }
+
+        final int stripeCount = Math.min(Integer.highestOneBit(Math.max(concurrency - 1, 1)) << 1,
+                Integer.highestOneBit(maxSize));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.maxStripeSize = (maxSize + stripeCount - 1) / stripeCount;
+        this.maxIdleMillis = unit.toMillis(maxIdle);
+    }
+
+    @Override
+    public Token get(String userId) {
+        final Stripe stripe = stripeFor(userId);
+        final StoredToken token = stripe.tokens.get(userId);
+        if (token == null) {
+            misses.increment();
+            return null;
+        }
+
+        final long now = CoarseClock.currentTimeMillis();
+        if (isIdle(token, now)) {
+            if (stripe.tokens.remove(userId, token)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+
+        if (token.accessedMillis != now) {
+            token.accessedMillis = now;
+        }
+        hits.increment();
+        return token;
+    }
+
+    @Override
+    public void put(String userId, Token token) {
+        final StoredToken stored = StoredToken.of(token);
+        stored.accessedMillis = CoarseClock.currentTimeMillis();
+
+        final Stripe stripe = stripeFor(userId);
+        stripe.tokens.put(userId, stored);
+        if (stripe.tokens.size() > maxStripeSize) {
+            evict(stripe);
+        }
+    }
+
+    @Override
+    public boolean remove(String userId) {
+        return stripeFor(userId).tokens.remove(userId) != null;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.tokens.size();
+        }
+
+        return size;
+    }
+
+    /** Evicts all idle tokens */
+    public void cleanUp() {
+        final long now = CoarseClock.currentTimeMillis();
+        for (Stripe stripe : stripes) {
+            final Iterator<StoredToken> tokens = stripe.tokens.values().iterator();
+            while (tokens.hasNext()) {
+                if (isIdle(tokens.next(), now)) {
+                    tokens.remove();
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private Stripe stripeFor(String userId) {
+        int h = userId.hashCode();
+        h ^= (h >>> 16);
+
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    private boolean isIdle(StoredToken token, long now) {
+        return maxIdleMillis > 0 && now - token.accessedMillis > maxIdleMillis;
+    }
+
+    private void evict(Stripe stripe) {
+        final long now = CoarseClock.currentTimeMillis();
+        synchronized (stripe) {
+            while (stripe.tokens.size() > maxStripeSize) {
+                // Of a few sampled tokens evict the first idle one, or else the least recently used
+                Map.Entry<String, StoredToken> victim = null;
+                for (int i = 0; i < SAMPLE_SIZE; i++) {
+                    final Map.Entry<String, StoredToken> entry = stripe.next();
+                    if (entry == null) {
+                        break;
+                    }
+                    if (victim == null || entry.getValue().accessedMillis < victim.getValue().accessedMillis) {
+                        victim = entry;
+                    }
+                    if (isIdle(entry.getValue(), now)) {
+                        break;
+                    }
+                }
+                if (victim == null) {
+                    return;
+                }
+
+                if (stripe.tokens.remove(victim.getKey(), victim.getValue())) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    protected static final class Stripe {
+        final ConcurrentHashMap<String, StoredToken> tokens = new ConcurrentHashMap<>();
+        /** Sweeps the stripe across evictions; guarded by the stripe */
+        private Iterator<Map.Entry<String, StoredToken>> cursor;
+
+        Map.Entry<String, StoredToken> next() {
+            if (cursor == null || !cursor.hasNext()) {
+                cursor = tokens.entrySet().iterator();
+                if (!cursor.hasNext()) {
+                    return null;
+                }
+            }
+
+            return cursor.next();
+        }
+    }
+}
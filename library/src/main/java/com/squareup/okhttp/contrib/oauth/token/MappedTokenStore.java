@@ -0,0 +1,336 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.token;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * A token store that persists tokens in an append-only log, memory-mapped from a file. Tokens
+ * survive restarts: on open the log is scanned once to index the latest record of each user, and
+ * tokens are then read straight from the mapping.
+ *
+ * <p>Each record is {@code crc32, length, payload}. A torn record, e.g. after a crash, fails its
+ * checksum and ends the log; everything from there on is discarded on open. Once superseded
+ * records take more space than live ones, the live records are copied to a new file that
+ * atomically replaces the log.
+ *
+ * <p>Reads never lock; writes are serialized. A write is visible at once and survives a crash of the
+ * process, as it goes to the shared mapping; it is written through to the disk, and so survives a
+ * crash of the machine, only by {@link #sync()} or {@link #close()}.
+ *
+ * <p>The log is limited to 2 GiB, the largest file a single mapping can cover.
+ */
+public class MappedTokenStore implements TokenStore, Closeable {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int MAGIC = 0x4f4b544b; // OKTK
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int INITIAL_CAPACITY = 1024 * 1024;
+    private static final int MIN_COMPACTION_BYTES = 1024 * 1024;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    protected final File file;
+    private FileChannel channel;
+    private volatile Log log;
+    private int writePosition;
+    private long liveBytes;
+    private long garbageBytes;
+
+    /** Opens the store, creating the file if it does not exist */
+    public MappedTokenStore(File file) throws IOException {
+        this.file = file;
+        open();
+    }
+
+    @Override
+    public Token get(String userId) {
+        Log current = log;
+        final Integer offset = current.index.get(userId);
+        if (offset == null) {
+            return null;
+        }
+        if (offset >= current.buffer.capacity()) {
+            current = log; // Appended after the log grew
+        }
+
+        return read(current.buffer, offset);
+    }
+
+    @Override
+    public synchronized void put(String userId, Token token) {
+        final StoredToken stored = StoredToken.of(token);
+        final byte[] id = userId.getBytes(UTF_8);
+        final ByteBuffer payload = ByteBuffer.allocate(1 + 4 + id.length + 4 + 4 + stored.data().length);
+        payload.put(PUT)
+                .putInt(id.length).put(id)
+                .putInt(stored.valueLength())
+                .putInt(stored.hasSecret() ? stored.data().length - stored.valueLength() : -1)
+                .put(stored.data());
+
+        append(userId, payload.array(), true);
+    }
+
+    @Override
+    public synchronized boolean remove(String userId) {
+        if (!log.index.containsKey(userId)) {
+            return false;
+        }
+
+        final byte[] id = userId.getBytes(UTF_8);
+        final ByteBuffer payload = ByteBuffer.allocate(1 + 4 + id.length);
+        payload.put(REMOVE).putInt(id.length).put(id);
+
+        append(userId, payload.array(), false);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return log.index.size();
+    }
+
+    /** Writes changes through to the file */
+    public synchronized void sync() {
+        log.buffer.force();
+    }
+
+    /**
+     * Copies the live records to a new log that replaces the current one. The new log replaces the
+     * file only once it is completely written and forced to the disk; if that fails, the current
+     * log stays in use as it is.
+     */
+    public synchronized void compact() throws IOException {
+        final Log current = log;
+        final File compacted = new File(file.getPath() + ".compact");
+        final Map<String, Integer> index = new ConcurrentHashMap<>(current.index.size());
+        final int capacity = capacity(Math.max(INITIAL_CAPACITY, 2 * (HEADER_SIZE + liveBytes)));
+
+        final FileChannel out = FileChannel.open(compacted.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final MappedByteBuffer buffer;
+        int position = HEADER_SIZE;
+        try {
+            buffer = out.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.putInt(0, MAGIC);
+            for (Map.Entry<String, Integer> entry : current.index.entrySet()) {
+                final int offset = entry.getValue();
+                final int length = RECORD_HEADER_SIZE + current.buffer.getInt(offset + 4);
+                final ByteBuffer record = current.buffer.duplicate();
+                record.limit(offset + length).position(offset);
+                buffer.position(position);
+                buffer.put(record);
+                index.put(entry.getKey(), position);
+                position += length;
+            }
+            buffer.force();
+
+            // The mapping of the new file stays valid across the rename
+            Files.move(compacted.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            Files.deleteIfExists(compacted.toPath());
+            throw e;
+        }
+
+        final FileChannel previous = channel;
+        channel = out;
+        log = new Log(buffer, index);
+        writePosition = position;
+        liveBytes = position - HEADER_SIZE;
+        garbageBytes = 0;
+        previous.close();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        log.buffer.force();
+        channel.close();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final int capacity = (int) Math.max(INITIAL_CAPACITY, channel.size());
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        if (buffer.getInt(0) == 0) {
+            buffer.putInt(0, MAGIC);
+        } else if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a token store: " + file);
+        }
+
+        // Replay the log to index the latest record of each user
+        final Map<String, Integer> index = new ConcurrentHashMap<>();
+        final CRC32 crc = new CRC32();
+        int position = HEADER_SIZE;
+        boolean torn = false;
+        while (position + RECORD_HEADER_SIZE <= capacity) {
+            final int length = buffer.getInt(position + 4);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || position + RECORD_HEADER_SIZE + length > capacity
+                    || buffer.getInt(position) != checksum(crc, buffer, position + RECORD_HEADER_SIZE, length)) {
+                // Torn or partially written record, the log ends before it
+                torn = true;
+                break;
+            }
+
+            final ByteBuffer record = buffer.duplicate();
+            record.position(position + RECORD_HEADER_SIZE);
+            final byte op = record.get();
+            final byte[] id = new byte[record.getInt()];
+            record.get(id);
+            final String userId = new String(id, UTF_8);
+            final Integer previous = op == PUT ? index.put(userId, position) : index.remove(userId);
+            if (previous != null) {
+                garbageBytes += RECORD_HEADER_SIZE + buffer.getInt(previous + 4);
+                liveBytes -= RECORD_HEADER_SIZE + buffer.getInt(previous + 4);
+            }
+            if (op == PUT) {
+                liveBytes += RECORD_HEADER_SIZE + length;
+            } else {
+                garbageBytes += RECORD_HEADER_SIZE + length;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+
+        if (torn) {
+            for (int i = position; i < capacity; i++) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+        log = new Log(buffer, index);
+        writePosition = position;
+    }
+
+    private void append(String userId, byte[] payload, boolean put) {
+        final int length = RECORD_HEADER_SIZE + payload.length;
+        Log current = log;
+        if ((long) writePosition + length > current.buffer.capacity()) {
+            current = grow((long) writePosition + length);
+        }
+
+        // Write the payload first, the header that makes the record valid last
+        final ByteBuffer buffer = current.buffer.duplicate();
+        buffer.position(writePosition + RECORD_HEADER_SIZE);
+        buffer.put(payload);
+        buffer.putInt(writePosition + 4, payload.length);
+        final int crc = checksum(new CRC32(), buffer, writePosition + RECORD_HEADER_SIZE, payload.length);
+        buffer.putInt(writePosition, crc);
+
+        final Integer previous = put ? current.index.put(userId, writePosition) : current.index.remove(userId);
+        if (previous != null) {
+            final int previousLength = RECORD_HEADER_SIZE + buffer.getInt(previous + 4);
+            garbageBytes += previousLength;
+            liveBytes -= previousLength;
+        }
+        if (put) {
+            liveBytes += length;
+        } else {
+            garbageBytes += length;
+        }
+        writePosition += length;
+
+        if (garbageBytes > MIN_COMPACTION_BYTES && garbageBytes > liveBytes) {
+            try {
+                compact();
+            } catch (IOException e) {
+                // The record is in the log, which stays valid as it is
+                throw new IllegalStateException("Cannot compact token store " + file, e);
+            }
+        }
+    }
+
+    private Log grow(long minCapacity) {
+        capacity(minCapacity);
+        long capacity = log.buffer.capacity();
+        while (capacity < minCapacity) {
+            capacity = Math.min(2 * capacity, Integer.MAX_VALUE);
+        }
+
+        try {
+            log = new Log(channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity), log.index);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot grow token store " + file, e);
+        }
+
+        return log;
+    }
+
+    /** Returns the capacity of a mapping of at least the given size, up to the 2 GiB limit */
+    private int capacity(long minCapacity) {
+        if (minCapacity > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Token store exceeds 2 GiB: " + file);
+        }
+
+        return (int) minCapacity;
+    }
+
+    private static int checksum(CRC32 crc, ByteBuffer buffer, int offset, int length) {
+        final ByteBuffer payload = buffer.duplicate();
+        payload.limit(offset + length).position(offset);
+        crc.reset();
+        crc.update(payload);
+
+        return (int) crc.getValue();
+    }
+
+    private static StoredToken read(ByteBuffer buffer, int offset) {
+        final ByteBuffer record = buffer.duplicate();
+        record.position(offset + RECORD_HEADER_SIZE + 1);
+        record.position(record.position() + 4 + record.getInt());
+        final int valueLength = record.getInt();
+        final int secretLength = record.getInt();
+        final byte[] data = new byte[valueLength + Math.max(secretLength, 0)];
+        record.get(data);
+
+        return new StoredToken(data, valueLength, secretLength != -1);
+    }
+
+    /** A mapping of the log and the offsets of the latest record of each user */
+    private static final class Log {
+        final MappedByteBuffer buffer;
+        final Map<String, Integer> index;
+
+        Log(MappedByteBuffer buffer, Map<String, Integer> index) {
+            this.buffer = buffer;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.token;
+
+import com.squareup.okhttp.contrib.oauth.cache.BoundedCache;
+import com.squareup.okhttp.contrib.oauth.cache.CoarseClock;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A token store that keeps a bounded near-cache in front of a {@link RemoteTokenBackend}. A hit is
+ * a local hash lookup. Misses of concurrent threads are coalesced into batched
+ * {@link RemoteTokenBackend#getAll(java.util.Collection)} calls, and users without a token are
+ * cached negatively for a short time.
+ *
+ * <p>Revocations reach the near-cache when the backend pushes them to the listener, or when
+ * {@link #pollInvalidations()} pulls them, e.g. from a scheduled executor. A lookup that overlaps
+ * an invalidation of the same user returns its result but does not cache it.
+ *
+ * <p>{@link #get(String)} throws {@link UncheckedIOException} if the backend fails, or if the token
+ * is not loaded within the load timeout.
+ */
+public class NearCacheTokenStore implements TokenStore, RemoteTokenBackend.Listener {
+    private static final int MAX_BATCH_SIZE = 128;
+    private static final int VERSION_STRIPES = 256;
+    private static final long DEFAULT_LOAD_TIMEOUT_MILLIS = 30000;
+    /** How long a waiting thread sleeps before it helps loading queued misses */
+    private static final long DRAIN_INTERVAL_MILLIS = 5;
+
+    protected final RemoteTokenBackend backend;
+    protected final InMemoryTokenStore near;
+    protected final BoundedCache<String, Long> absent;
+    protected final long negativeTtlMillis;
+    protected final long loadTimeoutMillis;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Token>> pending = new ConcurrentHashMap<>();
+    private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean loading = new AtomicBoolean();
+    /** Invalidation counts, striped by user id */
+    private final AtomicLongArray invalidations = new AtomicLongArray(VERSION_STRIPES);
+    private volatile long version;
+
+    /**
+     * @param backend Remote backend
+     * @param maxSize Maximum number of tokens in the near-cache
+     * @param ttl Near-cached tokens not read for this long are evicted
+     * @param negativeTtl Users without a token are cached as such for this long
+     * @param unit Unit of {@code ttl} and {@code negativeTtl}
+     */
+    public NearCacheTokenStore(RemoteTokenBackend backend, int maxSize, long ttl, long negativeTtl,
+            TimeUnit unit) {
+        this(backend, maxSize, unit.toMillis(ttl), unit.toMillis(negativeTtl), DEFAULT_LOAD_TIMEOUT_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param backend Remote backend
+     * @param maxSize Maximum number of tokens in the near-cache
+     * @param ttl Near-cached tokens not read for this long are evicted
+     * @param negativeTtl Users without a token are cached as such for this long
+     * @param loadTimeout Longest wait for a token to be loaded from the backend
+     * @param unit Unit of {@code ttl}, {@code negativeTtl} and {@code loadTimeout}
+     */
+    public NearCacheTokenStore(RemoteTokenBackend backend, int maxSize, long ttl, long negativeTtl,
+            long loadTimeout, TimeUnit unit) {
+        this.backend = backend;
+        this.near = new InMemoryTokenStore(maxSize, ttl, unit);
+        this.absent = new BoundedCache<>(maxSize);
+        this.negativeTtlMillis = unit.toMillis(negativeTtl);
+        this.loadTimeoutMillis = unit.toMillis(loadTimeout);
+
+        backend.addListener(this);
+    }
+
+    @Override
+    public Token get(String userId) {
+        final Token token = near.get(userId);
+        if (token != null) {
+            return token;
+        }
+
+        final Long absentUntil = absent.get(userId);
+        if (absentUntil != null) {
+            if (CoarseClock.currentTimeMillis() < absentUntil) {
+                return null;
+            }
+            absent.remove(userId);
+        }
+
+        return load(userId);
+    }
+
+    @Override
+    public void put(String userId, Token token) {
+        try {
+            backend.put(userId, token);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        invalidated(userId);
+        near.put(userId, token);
+    }
+
+    @Override
+    public boolean remove(String userId) {
+        try {
+            backend.remove(userId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final boolean cached = near.remove(userId);
+        invalidated(userId);
+
+        return cached;
+    }
+
+    /** Returns the number of near-cached tokens */
+    @Override
+    public int size() {
+        return near.size();
+    }
+
+    /** Drops the near-cached token of the user; called by the backend on push */
+    @Override
+    public void invalidated(String userId) {
+        // Count first: a load that cached the token before this removal sees the count changed
+        invalidations.incrementAndGet(stripe(userId));
+        near.remove(userId);
+        absent.remove(userId);
+    }
+
+    /** Pulls invalidations from the backend; returns the number of invalidated users */
+    public synchronized int pollInvalidations() throws IOException {
+        final RemoteTokenBackend.Changes changes = backend.changesSince(version);
+        for (String userId : changes.userIds) {
+            invalidated(userId);
+        }
+        version = changes.version;
+
+        return changes.userIds.size();
+    }
+
+    /** Returns the near-cache, e.g. for its hit and miss counters */
+    public InMemoryTokenStore nearCache() {
+        return near;
+    }
+
+    private Token load(String userId) {
+        CompletableFuture<Token> future = new CompletableFuture<>();
+        final CompletableFuture<Token> existing = pending.putIfAbsent(userId, future);
+        if (existing != null) {
+            future = existing;
+        } else {
+            queue.add(userId);
+        }
+
+        // Waiting threads take turns loading one batch each, until their own token is loaded
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(loadTimeoutMillis);
+        try {
+            while (true) {
+                if (!drain()) {
+                    try {
+                        return future.get(DRAIN_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException ignored) {
+                    }
+                } else if (future.isDone()) {
+                    return future.get();
+                }
+
+                if (System.nanoTime() - deadline > 0) {
+                    throw new UncheckedIOException(
+                            new InterruptedIOException("Timed out loading token of " + userId));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new IOException("Interrupted while loading token", e));
+        } catch (ExecutionException e) {
+            throw new UncheckedIOException(e.getCause() instanceof IOException
+                    ? (IOException) e.getCause()
+                    : new IOException(e.getCause()));
+        }
+    }
+
+    /**
+     * Loads one batch of queued misses; one thread loads at a time. Returns false if another
+     * thread is loading or nothing is queued.
+     */
+    private boolean drain() {
+        if (!loading.compareAndSet(false, true)) {
+            return false;
+        }
+
+        try {
+            final List<String> batch = new ArrayList<>();
+            for (String userId; batch.size() < MAX_BATCH_SIZE && (userId = queue.poll()) != null; ) {
+                batch.add(userId);
+            }
+            if (batch.isEmpty()) {
+                return false;
+            }
+
+            loadBatch(batch);
+            return true;
+        } finally {
+            loading.set(false);
+        }
+    }
+
+    private void loadBatch(List<String> batch) {
+        final long[] invalidationsBefore = new long[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            invalidationsBefore[i] = invalidations.get(stripe(batch.get(i)));
+        }
+
+        Throwable failure = null;
+        try {
+            final Map<String, Token> tokens = backend.getAll(batch);
+            if (tokens == null) {
+                throw new IOException("Backend returned no result");
+            }
+
+            final long absentUntil = CoarseClock.currentTimeMillis() + negativeTtlMillis;
+            for (int i = 0; i < batch.size(); i++) {
+                final String userId = batch.get(i);
+                final Token token = tokens.get(userId);
+                if (token != null) {
+                    near.put(userId, token);
+                } else if (negativeTtlMillis > 0) {
+                    absent.putIfAbsent(userId, absentUntil);
+                }
+
+                // Invalidated while loading or caching: the result may be stale, do not keep it
+                if (invalidations.get(stripe(userId)) != invalidationsBefore[i]) {
+                    near.remove(userId);
+                    absent.remove(userId);
+                }
+
+                final CompletableFuture<Token> future = pending.remove(userId);
+                if (future != null) {
+                    future.complete(token);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+        } finally {
+            // Never leave a waiting thread behind
+            for (String userId : batch) {
+                final CompletableFuture<Token> future = pending.remove(userId);
+                if (future != null) {
+                    future.completeExceptionally(failure != null ? failure : new IOException("Token not loaded"));
+                }
+            }
+        }
+    }
+
+    private static int stripe(String userId) {
+        final int h = userId.hashCode();
+
+        return (h ^ (h >>> 16)) & (VERSION_STRIPES - 1);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.token;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The shared store behind a {@link NearCacheTokenStore}, e.g. a remote cache or database used by
+ * the whole fleet. Invalidations are either pushed to listeners or pulled by version.
+ */
+public interface RemoteTokenBackend {
+
+    /** Receives invalidations pushed by the backend */
+    interface Listener {
+
+        /** Called when the token of the user changed or was revoked */
+        void invalidated(String userId);
+    }
+
+    /** Users whose tokens changed since a version */
+    final class Changes {
+        public final long version;
+        public final List<String> userIds;
+
+        /**
+         * @param version Version to pass to the next {@link #changesSince(long)}
+         * @param userIds Users whose tokens changed
+         */
+        public Changes(long version, List<String> userIds) {
+            this.version = version;
+            this.userIds = userIds;
+        }
+    }
+
+    /** Returns the tokens of the users in one round trip; users without a token are left out */
+    Map<String, Token> getAll(Collection<String> userIds) throws IOException;
+
+    void put(String userId, Token token) throws IOException;
+
+    void remove(String userId) throws IOException;
+
+    /** Returns the users whose tokens changed after the version; version 0 is the beginning */
+    Changes changesSince(long version) throws IOException;
+
+    /** Registers a listener for pushed invalidations; backends that cannot push ignore it */
+    void addListener(Listener listener);
+}
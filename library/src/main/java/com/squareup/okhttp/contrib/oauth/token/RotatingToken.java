@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.token;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A token that can be rotated while requests are being signed. Value and secret are replaced
+ * together, with one atomic swap of an immutable snapshot; readers never lock and always see a
+ * matching value and secret through {@link #current()}, see {@link #snapshotOf}. Reading
+ * {@link #value()} and {@link #secret()} one after the other may straddle a rotation.
+ *
+ * <p>The previous snapshot stays available from {@link #previous()} during an overlap window, see
+ * {@link com.squareup.okhttp.contrib.oauth.consumer.RotatingConsumer}.
+ */
+public class RotatingToken implements Token {
+
+    private final AtomicReference<Generation> generation;
+
+    public RotatingToken(String value, String secret) {
+        this.generation = new AtomicReference<>(new Generation(new DefaultToken(value, secret), null, 0));
+    }
+
+    /** Returns the current snapshot of value and secret */
+    public Token current() {
+        return generation.get().current;
+    }
+
+    /** Returns the current snapshot of a rotating token, or the token itself */
+    public static Token snapshotOf(Token token) {
+        return token instanceof RotatingToken ? ((RotatingToken) token).current() : token;
+    }
+
+    /** Returns the previous snapshot while its overlap window lasts, or null */
+    public Token previous() {
+        final Generation current = generation.get();
+
+        return current.previous != null && System.currentTimeMillis() < current.previousUntilMillis
+                ? current.previous
+                : null;
+    }
+
+    /** Replaces value and secret; the previous ones are dropped at once */
+    public void rotate(String value, String secret) {
+        rotate(value, secret, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replaces value and secret.
+     *
+     * @param overlap How long the previous token stays available from {@link #previous()}
+     * @param unit Unit of {@code overlap}
+     */
+    public void rotate(String value, String secret, long overlap, TimeUnit unit) {
+        final long previousUntil = System.currentTimeMillis() + unit.toMillis(overlap);
+        Generation current;
+        Generation next;
+        do {
+            current = generation.get();
+            next = new Generation(new DefaultToken(value, secret),
+                    overlap > 0 ? current.current : null, previousUntil);
+        } while (!generation.compareAndSet(current, next));
+    }
+
+    @Override
+    public String value() {
+        return current().value();
+    }
+
+    @Override
+    public String secret() {
+        return current().secret();
+    }
+
+    private static final class Generation {
+        final Token current;
+        final Token previous;
+        final long previousUntilMillis;
+
+        Generation(Token current, Token previous, long previousUntilMillis) {
+            this.current = current;
+            this.previous = previous;
+            this.previousUntilMillis = previousUntilMillis;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.token;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A token kept as one UTF-8 byte array, value then secret. Strings are decoded on access, so a
+ * stored token costs one small object and one array. Stored tokens are equal if value and secret
+ * are, so tokens read from a store again can be used as cache keys.
+ */
+public final class StoredToken implements Token {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final byte[] data;
+    private final int valueLength;
+    private final boolean hasSecret;
+    /** Last access, see {@link com.squareup.okhttp.contrib.oauth.cache.CoarseClock} */
+    volatile long accessedMillis;
+
+    public StoredToken(String value, String secret) {
+        if (value == null) throw new NullPointerException("value == null");
+
+        final byte[] valueBytes = value.getBytes(UTF_8);
+        final byte[] secretBytes = secret != null ? secret.getBytes(UTF_8) : new byte[0];
+        this.data = new byte[valueBytes.length + secretBytes.length];
+        System.arraycopy(valueBytes, 0, data, 0, valueBytes.length);
+        System.arraycopy(secretBytes, 0, data, valueBytes.length, secretBytes.length);
+        this.valueLength = valueBytes.length;
+        this.hasSecret = secret != null;
+    }
+
+    /** Wraps encoded bytes, value then secret, without copying */
+    StoredToken(byte[] data, int valueLength, boolean hasSecret) {
+        this.data = data;
+        this.valueLength = valueLength;
+        this.hasSecret = hasSecret;
+    }
+
+    /** Returns a stored copy of the token, or the token if it is stored already */
+    public static StoredToken of(Token token) {
+        if (token instanceof StoredToken) {
+            return (StoredToken) token;
+        }
+
+        return new StoredToken(token.value(), token.secret());
+    }
+
+    /** Returns value and secret, UTF-8 encoded; do not modify */
+    byte[] data() {
+        return data;
+    }
+
+    int valueLength() {
+        return valueLength;
+    }
+
+    boolean hasSecret() {
+        return hasSecret;
+    }
+
+    @Override
+    public String value() {
+        return new String(data, 0, valueLength, UTF_8);
+    }
+
+    @Override
+    public String secret() {
+        return hasSecret ? new String(data, valueLength, data.length - valueLength, UTF_8) : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof StoredToken)) {
+            return false;
+        }
+
+        final StoredToken other = (StoredToken) o;
+        return valueLength == other.valueLength && hasSecret == other.hasSecret && Arrays.equals(data, other.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(data) + valueLength;
+    }
+}
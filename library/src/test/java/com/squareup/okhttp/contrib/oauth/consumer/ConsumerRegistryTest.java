@@ -0,0 +1,157 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.consumer;
+
+import com.squareup.okhttp.contrib.oauth.service.OAuth10Service;
+import com.squareup.okhttp.contrib.oauth.signing.HmacSha1SignatureMethod;
+import com.squareup.okhttp.contrib.oauth.signing.OAuthCredentials;
+import com.squareup.okhttp.contrib.oauth.signing.SignatureMethod;
+import com.squareup.okhttp.contrib.oauth.signing.SigningException;
+
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConsumerRegistryTest {
+    private static final String KEY = "xvz1evFS4wEEPTGEFPHBog";
+    private static final String SECRET = "kAcSOqF21Fu85e7zjz7ZN2U4ZRhfV3WpwPAoE3Z7kBw";
+
+    private final ConsumerRegistry registry = new ConsumerRegistry();
+
+    @Test
+    public void registersConsumers() {
+        final RegisteredConsumer consumer = registry.register("twitter", KEY, SECRET);
+        registry.register("twitter", "other", "s\u00e9cret+/");
+        registry.register("acme", "acme-key", "acme-secret");
+
+        assertThat(registry.get(KEY)).isSameAs(consumer);
+        assertThat(registry.get(new String(KEY)).key()).isSameAs(consumer.key());
+        assertThat(consumer.secret()).isEqualTo(SECRET);
+        assertThat(new String(consumer.derivedKey(null))).isEqualTo(SECRET + "&");
+        assertThat(new String(consumer.derivedKey("t s"))).isEqualTo(SECRET + "&t%20s");
+        assertThat(new String(registry.get("other").derivedKey(""))).isEqualTo("s%C3%A9cret%2B%2F&");
+        assertThat(registry.consumerCount("twitter")).isEqualTo(2);
+        assertThat(registry.memoryUsage("acme")).isEqualTo(2 * "acme-secret".length() + 1);
+        assertThat(registry.reservedMemory()).isGreaterThanOrEqualTo(64 * 1024);
+    }
+
+    @Test
+    public void zeroesUnregisteredConsumers() {
+        final RegisteredConsumer consumer = registry.register("twitter", KEY, SECRET);
+        assertThat(registry.unregister(KEY)).isTrue();
+
+        assertThat(consumer.isDestroyed()).isTrue();
+        assertThat(registry.get(KEY)).isNull();
+        assertThat(registry.memoryUsage("twitter")).isEqualTo(0);
+        for (int i = 0; i < consumer.size(); i++) {
+            assertThat(consumer.region.get(consumer.offset + i)).isEqualTo((byte) 0);
+        }
+
+        // The freed slot is reused by a consumer of the same size
+        final RegisteredConsumer rotated = registry.register("twitter", KEY, SECRET.replace('k', 'K'));
+        assertThat(rotated.offset).isEqualTo(consumer.offset);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unregisteredSecretIsGone() {
+        final RegisteredConsumer consumer = registry.register("twitter", KEY, SECRET);
+        registry.register("twitter", KEY, "rotated");
+
+        consumer.secret();
+    }
+
+    @Test
+    public void signsWithDerivedKey() throws Exception {
+        final OAuth10Service service = new OAuth10Service();
+        final RegisteredConsumer consumer = registry.register("twitter", KEY, SECRET);
+
+        assertThat(service.signingContext(consumer, null).signatureMethod().signatureOf("base"))
+                .isEqualTo(service.signingContext(new DefaultOAuthConsumer(KEY, SECRET), null)
+                        .signatureMethod().signatureOf("base"));
+    }
+
+    @Test
+    public void registersSecretBytes() {
+        final RegisteredConsumer consumer =
+                registry.register("twitter", KEY, "s\u00e9cret".getBytes(Charset.forName("UTF-8")));
+
+        assertThat(consumer.secret()).isEqualTo("s\u00e9cret");
+        assertThat(new String(consumer.derivedKey(null))).isEqualTo("s%C3%A9cret&");
+    }
+
+    @Test
+    public void cachesDerivedKeyPerConsumer() throws Exception {
+        final OAuth10Service service = new OAuth10Service();
+        final RegisteredConsumer consumer = registry.register("twitter", KEY, SECRET);
+
+        final SignatureMethod first = service.signingContext(consumer, null).signatureMethod();
+        final SignatureMethod second = service.signingContext(consumer, null).signatureMethod();
+        assertThat(first.signatureOf("base")).isEqualTo(second.signatureOf("base"));
+        assertThat(second).isNotSameAs(first).isEqualToComparingFieldByField(first);
+
+        registry.register("twitter", KEY, "rotated");
+        try {
+            service.signingContext(consumer, null);
+            throw new AssertionError("Expected SigningException");
+        } catch (SigningException expected) {
+        }
+    }
+
+    @Test
+    public void cachedCredentialsStopSigningWhenUnregistered() throws Exception {
+        final OAuth10Service service = new OAuth10Service();
+        final OAuthCredentials credentials = new OAuthCredentials(registry.register("twitter", KEY, SECRET), null);
+        final SignatureMethod method = credentials.signingContext(service).signatureMethod();
+        method.signatureOf("base");
+
+        registry.unregister(KEY);
+        try {
+            credentials.signingContext(service).signatureMethod().signatureOf("base");
+            throw new AssertionError("Expected SigningException");
+        } catch (SigningException expected) {
+        }
+    }
+
+    @Test
+    public void dropsCachedMacsWhenUnregistered() throws Exception {
+        final CountingMethod method = new CountingMethod();
+        final RegisteredConsumer consumer = registry.register("twitter", KEY, SECRET);
+        method.withDerivedKey(consumer, null);
+        method.withDerivedKey(consumer, "token-secret");
+        method.withKey(SECRET, null);
+        assertThat(method.cached()).isEqualTo(3);
+
+        registry.register("twitter", KEY, "rotated");
+        assertThat(method.cached()).isEqualTo(1);
+    }
+
+    private static final class CountingMethod extends HmacSha1SignatureMethod {
+        int cached() {
+            return macs.size();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.consumer;
+
+import com.squareup.okhttp.contrib.oauth.OAuthConsumer;
+import com.squareup.okhttp.contrib.oauth.service.OAuth10Service;
+import com.squareup.okhttp.contrib.oauth.signing.OAuthCredentials;
+import com.squareup.okhttp.contrib.oauth.signing.SigningContext;
+import com.squareup.okhttp.contrib.oauth.token.RotatingToken;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RotatingConsumerTest {
+    private final OAuth10Service service = new OAuth10Service();
+
+    @Test
+    public void rotateReplacesSecret() {
+        final RotatingConsumer consumer = new RotatingConsumer("key", "secret");
+        final OAuthConsumer before = consumer.current();
+
+        consumer.rotate("secret2");
+
+        assertThat(consumer.key()).isEqualTo("key");
+        assertThat(consumer.secret()).isEqualTo("secret2");
+        assertThat(before.secret()).isEqualTo("secret");
+        assertThat(consumer.previous()).isNull();
+    }
+
+    @Test
+    public void previousLastsForOverlap() {
+        final RotatingConsumer consumer = new RotatingConsumer("key", "secret");
+
+        consumer.rotate("secret2", 1, TimeUnit.HOURS);
+
+        assertThat(consumer.previous().secret()).isEqualTo("secret");
+    }
+
+    @Test
+    public void credentialsFollowRotation() throws Exception {
+        final RotatingConsumer consumer = new RotatingConsumer("key", "secret");
+        final RotatingToken token = new RotatingToken("token", "token-secret");
+        final OAuthCredentials credentials = new OAuthCredentials(consumer, token);
+
+        final SigningContext before = credentials.signingContext(service);
+        assertThat(credentials.signingContext(service)).isSameAs(before);
+
+        consumer.rotate("secret2", 1, TimeUnit.HOURS);
+        token.rotate("token2", "token-secret2");
+        final SigningContext after = credentials.signingContext(service);
+
+        assertThat(after).isNotSameAs(before);
+        assertThat(before.consumer().secret()).isEqualTo("secret");
+        assertThat(before.token().value()).isEqualTo("token");
+        assertThat(after.consumer().secret()).isEqualTo("secret2");
+        assertThat(after.token().value()).isEqualTo("token2");
+
+        final OAuthCredentials previous = credentials.previous();
+        assertThat(previous.signingContext(service).consumer().secret()).isEqualTo("secret");
+        assertThat(previous.signingContext(service).token().value()).isEqualTo("token2");
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.encoder;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import okio.Buffer;
+import okio.ByteString;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class Base64EncoderTest {
+
+    @Test
+    public void encodePercentEncoded() throws Exception {
+        final Buffer buffer = new Buffer();
+        Base64Encoder.encodePercentEncoded(
+                ByteString.decodeBase64("tnnArxj06cWHq44gCs1OSKk/jLY=").toByteArray(), buffer);
+
+        assertThat(buffer.readUtf8()).isEqualTo("tnnArxj06cWHq44gCs1OSKk%2FjLY%3D");
+    }
+
+    @Test
+    public void encodePercentEncodedMatchesTwoPassEncoding() throws Exception {
+        final Random random = new Random(0);
+        for (int length = 0; length < 70; length++) {
+            final byte[] data = new byte[length];
+            random.nextBytes(data);
+
+            final Buffer buffer = new Buffer();
+            Base64Encoder.encodePercentEncoded(data, buffer);
+
+            assertThat(buffer.readUtf8()).isEqualTo(PercentEncoder.encode(ByteString.of(data).base64()));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.encoder;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import okio.Buffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test data from..
+ *
+ * @link https://dev.twitter.com/oauth/overview/percent-encoding-parameters
+ */
+public class PercentEncoderTest {
+
+    @Test
+    public void encode() {
+        assertThat(PercentEncoder.encode("Ladies + Gentlemen"))
+                .isEqualTo("Ladies%20%2B%20Gentlemen");
+        assertThat(PercentEncoder.encode("An encoded string!"))
+                .isEqualTo("An%20encoded%20string%21");
+        assertThat(PercentEncoder.encode("Dogs, Cats & Mice"))
+                .isEqualTo("Dogs%2C%20Cats%20%26%20Mice");
+        assertThat(PercentEncoder.encode("\u2603"))
+                .isEqualTo("%E2%98%83");
+        assertThat(PercentEncoder.encode("a*b~c"))
+                .isEqualTo("a%2Ab~c");
+        assertThat(PercentEncoder.encode("\ud83d\ude00"))
+                .isEqualTo("%F0%9F%98%80");
+    }
+
+    @Test
+    public void encodeUnpairedSurrogate() {
+        assertThat(PercentEncoder.encode("a\ud83db"))
+                .isEqualTo("a%3Fb");
+        assertThat(PercentEncoder.encode("\ude00\ud83d"))
+                .isEqualTo("%3F%3F");
+        assertThat(PercentEncoder.encode("\ud83d\ude00\ude00"))
+                .isEqualTo("%F0%9F%98%80%3F");
+
+        // Same as encoding the bytes of String.getBytes(), e.g. for derived HMAC keys
+        final byte[] bytes = "s\ud800cret".getBytes(Charset.forName("UTF-8"));
+        final ByteBuffer encoded = PercentEncoder.encode(bytes,
+                ByteBuffer.allocate(PercentEncoder.encodedLength(bytes)));
+        assertThat(new String(encoded.array(), Charset.forName("US-ASCII")))
+                .isEqualTo(PercentEncoder.encode("s\ud800cret"));
+    }
+
+    @Test
+    public void encodeReturnsInputWhenUnreserved() {
+        final String input = "Hello-World_1.0~";
+
+        assertThat(PercentEncoder.encode(input)).isSameAs(input);
+    }
+
+    @Test
+    public void encodeToBuffer() {
+        final Buffer buffer = new Buffer().writeUtf8("status=");
+
+        assertThat(PercentEncoder.encode("Hello Ladies", buffer).readUtf8())
+                .isEqualTo("status=Hello%20Ladies");
+    }
+
+    @Test
+    public void decode() {
+        assertThat(PercentEncoder.decode("Dogs%2C%20Cats%20%26%20Mice"))
+                .isEqualTo("Dogs, Cats & Mice");
+        assertThat(PercentEncoder.decode("%E2%98%83%e2%98%83"))
+                .isEqualTo("\u2603\u2603");
+        assertThat(PercentEncoder.decode("a+b"))
+                .isEqualTo("a+b");
+    }
+
+    @Test
+    public void decodeReturnsInputWhenUnescaped() {
+        final String input = "Hello World";
+
+        assertThat(PercentEncoder.decode(input)).isSameAs(input);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeIncompleteEscape() {
+        PercentEncoder.decode("abc%2");
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.request;
+
+import com.squareup.okhttp.HttpUrl;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BaseUrlCacheTest {
+
+    @Test
+    public void normalizesBaseUrl() {
+        assertThat(BaseUrlCache.baseUrl(HttpUrl.parse("HTTP://User:pw@Example.COM:80/r%20v/X.html?a=b#frag")))
+                .isEqualTo("http://example.com/r%20v/X.html");
+        assertThat(BaseUrlCache.baseUrl(HttpUrl.parse("https://www.example.net:8080/?q=1")))
+                .isEqualTo("https://www.example.net:8080/");
+        assertThat(BaseUrlCache.baseUrl(HttpUrl.parse("http://[::1]:8080/path")))
+                .isEqualTo("http://[::1]:8080/path");
+    }
+
+    @Test
+    public void cachesEncodedBaseUrlPerEndpoint() {
+        final BaseUrlCache cache = new BaseUrlCache(4);
+
+        assertThat(cache.encodedBaseUrl(HttpUrl.parse("https://api.twitter.com/1/statuses/update.json?a=b")).utf8())
+                .isEqualTo("https%3A%2F%2Fapi.twitter.com%2F1%2Fstatuses%2Fupdate.json");
+        assertThat(cache.encodedBaseUrl(HttpUrl.parse("https://api.twitter.com/1/statuses/update.json?c=d")))
+                .isSameAs(cache.encodedBaseUrl(HttpUrl.parse("https://api.twitter.com/1/statuses/update.json")));
+        assertThat(cache.cache.size()).isEqualTo(1);
+    }
+}
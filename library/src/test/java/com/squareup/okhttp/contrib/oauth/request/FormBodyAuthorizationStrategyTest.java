@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.request;
+
+import com.squareup.okhttp.FormEncodingBuilder;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.contrib.oauth.OAuth;
+
+import org.junit.Test;
+
+import okio.Buffer;
+import okio.ByteString;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FormBodyAuthorizationStrategyTest {
+
+    @Test
+    public void appendsEncodedParamsToForm() throws Exception {
+        final OAuthRequest request = new OAuthRequest(new Request.Builder()
+                .url("https://api.twitter.com/1/statuses/update.json")
+                .post(new FormEncodingBuilder().add("status", "Hello Ladies").build())
+                .build());
+        request.oauth(OAuth.CONSUMER_KEY, "xvz1evFS4wEEPTGEFPHBog");
+        request.encodedOauth(OAuth.SIGNATURE, ByteString.encodeUtf8("tnnArxj06cWHq44gCs1OSKk%2FjLY%3D"));
+
+        new FormBodyAuthorizationStrategy().applyTo(request);
+
+        final Buffer sent = new Buffer();
+        request.authorizedRequest().body().writeTo(sent);
+        assertThat(sent.readUtf8()).isEqualTo("status=Hello%20Ladies"
+                + "&oauth_consumer_key=xvz1evFS4wEEPTGEFPHBog"
+                + "&oauth_signature=tnnArxj06cWHq44gCs1OSKk%2FjLY%3D");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOtherBodies() {
+        final OAuthRequest request = new OAuthRequest(new Request.Builder()
+                .url("https://example.com/")
+                .post(RequestBody.create(MediaType.parse("application/json"), "{}"))
+                .build());
+
+        new FormBodyAuthorizationStrategy().applyTo(request);
+    }
+
+    @Test
+    public void createsFormForRequestsWithoutBody() throws Exception {
+        final OAuthRequest request = new OAuthRequest(new Request.Builder()
+                .url("https://example.com/1")
+                .delete()
+                .build());
+        request.oauth(OAuth.CONSUMER_KEY, "key");
+
+        new FormBodyAuthorizationStrategy().applyTo(request);
+
+        final Buffer sent = new Buffer();
+        request.authorizedRequest().body().writeTo(sent);
+        assertThat(request.authorizedRequest().method()).isEqualTo("DELETE");
+        assertThat(sent.readUtf8()).isEqualTo("oauth_consumer_key=key");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsGet() {
+        final OAuthRequest request = new OAuthRequest(new Request.Builder()
+                .url("https://example.com/?a=1")
+                .get()
+                .build());
+        request.oauth(OAuth.CONSUMER_KEY, "key");
+
+        new FormBodyAuthorizationStrategy().applyTo(request);
+    }
+
+    @Test
+    public void updatesFramingHeaders() throws Exception {
+        final OAuthRequest request = new OAuthRequest(new Request.Builder()
+                .url("https://example.com/")
+                .post(RequestBody.create(MediaType.parse("application/x-www-form-urlencoded"), "a=1"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .header("Content-Length", "3")
+                .build());
+        request.oauth(OAuth.CONSUMER_KEY, "key");
+
+        new FormBodyAuthorizationStrategy().applyTo(request);
+
+        final Buffer sent = new Buffer();
+        request.authorizedRequest().body().writeTo(sent);
+        assertThat(sent.readUtf8()).isEqualTo("a=1&oauth_consumer_key=key");
+        assertThat(request.authorizedRequest().header("Content-Length"))
+                .isEqualTo(Long.toString("a=1&oauth_consumer_key=key".length()));
+    }
+}
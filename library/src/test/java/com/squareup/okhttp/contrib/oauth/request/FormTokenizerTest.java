@@ -0,0 +1,65 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.request;
+
+import org.junit.Test;
+
+import okio.ByteString;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FormTokenizerTest {
+
+    @Test
+    public void tokenizesPairByPair() {
+        final FormTokenizer form = new FormTokenizer(ByteString.encodeUtf8("a=1&&b=x+y%7e%2A&c="));
+
+        assertThat(form.next()).isTrue();
+        assertThat(form.encodedName().utf8()).isEqualTo("a");
+        assertThat(form.encodedValue().utf8()).isEqualTo("1");
+        assertThat(form.next()).isTrue();
+        assertThat(form.encodedName().utf8()).isEqualTo("b");
+        assertThat(form.encodedValue().utf8()).isEqualTo("x%20y~%2A");
+        assertThat(form.next()).isTrue();
+        assertThat(form.encodedName().utf8()).isEqualTo("c");
+        assertThat(form.encodedValue().utf8()).isEmpty();
+        assertThat(form.next()).isFalse();
+    }
+
+    @Test
+    public void reencodesBytesAsIs() {
+        final ParameterList params = FormTokenizer.tokenize(
+                ByteString.encodeUtf8("text=%E2%98%83&raw=\u2603"), new ParameterList());
+
+        assertThat(params.encodedValue(0).utf8()).isEqualTo("%E2%98%83");
+        assertThat(params.encodedValue(1).utf8()).isEqualTo("%E2%98%83");
+        assertThat(params.value(1)).isEqualTo("\u2603");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidEscape() {
+        FormTokenizer.tokenize(ByteString.encodeUtf8("a=%4"), new ParameterList());
+    }
+}
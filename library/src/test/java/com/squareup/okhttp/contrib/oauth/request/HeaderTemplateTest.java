@@ -0,0 +1,73 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.request;
+
+import com.squareup.okhttp.contrib.oauth.OAuth;
+
+import org.junit.Test;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import okio.ByteString;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HeaderTemplateTest {
+
+    private final HeaderTemplate template = HeaderTemplate.compile(
+            new ParameterList()
+                    .add(OAuth.CONSUMER_KEY, "xvz1evFS4wEEPTGEFPHBog")
+                    .add(OAuth.SIGNATURE_METHOD, "HMAC-SHA1")
+                    .add(OAuth.VERSION, "1.0"),
+            OAuth.NONCE, OAuth.SIGNATURE, OAuth.TIMESTAMP);
+
+    @Test
+    public void rendersSlots() {
+        final SortedMap<String, ByteString> oauth = new TreeMap<>();
+        oauth.put(OAuth.CONSUMER_KEY, ByteString.encodeUtf8("xvz1evFS4wEEPTGEFPHBog"));
+        oauth.put(OAuth.NONCE, ByteString.encodeUtf8("abc"));
+        oauth.put(OAuth.SIGNATURE, ByteString.encodeUtf8("tnnArxj06cWHq44gCs1OSKk%2FjLY%3D"));
+        oauth.put(OAuth.SIGNATURE_METHOD, ByteString.encodeUtf8("HMAC-SHA1"));
+        oauth.put(OAuth.TIMESTAMP, ByteString.encodeUtf8("1318622958"));
+        oauth.put(OAuth.VERSION, ByteString.encodeUtf8("1.0"));
+
+        assertThat(template.render(oauth))
+                .isEqualTo("OAuth oauth_consumer_key=\"xvz1evFS4wEEPTGEFPHBog\""
+                        + ", oauth_nonce=\"abc\""
+                        + ", oauth_signature=\"tnnArxj06cWHq44gCs1OSKk%2FjLY%3D\""
+                        + ", oauth_signature_method=\"HMAC-SHA1\""
+                        + ", oauth_timestamp=\"1318622958\""
+                        + ", oauth_version=\"1.0\"");
+    }
+
+    @Test
+    public void returnsNullForOtherParams() {
+        final SortedMap<String, ByteString> oauth = new TreeMap<>();
+        oauth.put(OAuth.CALLBACK, ByteString.encodeUtf8("oob"));
+
+        assertThat(template.render(oauth)).isNull();
+    }
+}
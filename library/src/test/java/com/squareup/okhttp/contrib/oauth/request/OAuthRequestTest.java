@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.request;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okio.Buffer;
+import okio.BufferedSink;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OAuthRequestTest {
+
+    @Test
+    public void capturesFormBodyOnce() throws Exception {
+        final AtomicInteger writes = new AtomicInteger();
+        final RequestBody body = new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return MediaType.parse("application/x-www-form-urlencoded; charset=utf-8");
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                writes.incrementAndGet();
+                sink.writeUtf8("status=Hello+Ladies");
+            }
+        };
+        final OAuthRequest request = new OAuthRequest(new Request.Builder()
+                .url("https://api.twitter.com/1/statuses/update.json")
+                .post(body)
+                .build());
+
+        assertThat(request.addBodyParameters(new ParameterList()).encodedValue(0).utf8())
+                .isEqualTo("Hello%20Ladies");
+        assertThat(request.bodyParameters().value(0)).isEqualTo("Hello Ladies");
+
+        final Buffer sent = new Buffer();
+        request.newAuthorizedBuilder().build().body().writeTo(sent);
+        assertThat(sent.readUtf8()).isEqualTo("status=Hello+Ladies");
+        assertThat(writes.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void keepsOtherBodies() {
+        final RequestBody body = RequestBody.create(MediaType.parse("application/json"), "{}");
+        final OAuthRequest request = new OAuthRequest(new Request.Builder()
+                .url("https://example.com/")
+                .post(body)
+                .build());
+
+        assertThat(request.bodyParameters().size()).isEqualTo(0);
+        assertThat(request.requestBody()).isSameAs(body);
+    }
+
+    @Test
+    public void parsesParamsOnce() {
+        final OAuthRequest request = new OAuthRequest(new Request.Builder()
+                .url("https://example.com/?a=1&b=2")
+                .post(RequestBody.create(MediaType.parse("application/x-www-form-urlencoded"), "c=3"))
+                .build());
+
+        final ParameterList query = request.queryParameters();
+        final ParameterList body = request.bodyParameters();
+
+        assertThat(request.queryParameters()).isSameAs(query);
+        assertThat(request.bodyParameters()).isSameAs(body);
+        assertThat(request.query()).isSameAs(request.query()).containsEntry("b", "2");
+        assertThat(request.body()).isSameAs(request.body()).containsEntry("c", "3");
+
+        final OAuthRequest copy = new OAuthRequest(request);
+        assertThat(copy.queryParameters()).isSameAs(query);
+        assertThat(copy.bodyParameters()).isSameAs(body);
+    }
+}
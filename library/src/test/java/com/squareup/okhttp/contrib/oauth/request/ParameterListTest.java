@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.request;
+
+import com.squareup.okhttp.HttpUrl;
+
+import org.junit.Test;
+
+import okio.Buffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test data from..
+ *
+ * @link https://tools.ietf.org/html/rfc5849#section-3.4.1.3.2
+ */
+public class ParameterListTest {
+
+    @Test
+    public void sortsByNameThenValueKeepingDuplicates() {
+        final ParameterList params = new ParameterList()
+                .add("b5", "=%3D")
+                .add("a3", "a")
+                .add("c@", "")
+                .add("a2", "r b")
+                .add("oauth_consumer_key", "9djdj82h48djs9d2")
+                .add("oauth_token", "kkk9d7dh3k39sjv7")
+                .add("oauth_signature_method", "HMAC-SHA1")
+                .add("oauth_timestamp", "137131201")
+                .add("oauth_nonce", "7d8f3e4a")
+                .add("c2", "")
+                .add("a3", "2 q")
+                .sort();
+
+        assertThat(normalized(params)).isEqualTo("a2=r%20b&a3=2%20q&a3=a&b5=%3D%253D&c%40=&c2="
+                + "&oauth_consumer_key=9djdj82h48djs9d2&oauth_nonce=7d8f3e4a"
+                + "&oauth_signature_method=HMAC-SHA1&oauth_timestamp=137131201"
+                + "&oauth_token=kkk9d7dh3k39sjv7");
+    }
+
+    @Test
+    public void sortsLargeLists() {
+        final ParameterList params = new ParameterList();
+        for (int i = 99; i >= 0; i--) {
+            params.add("p" + (i % 10), "" + i);
+        }
+        params.sort();
+
+        assertThat(params.size()).isEqualTo(100);
+        for (int i = 1; i < params.size(); i++) {
+            final int byName = params.encodedName(i - 1).compareTo(params.encodedName(i));
+            assertThat(byName <= 0).isTrue();
+            if (byName == 0) {
+                assertThat(params.encodedValue(i - 1).compareTo(params.encodedValue(i)) <= 0).isTrue();
+            }
+        }
+    }
+
+    @Test
+    public void growsFromZeroCapacity() {
+        final ParameterList params = new ParameterList(0)
+                .add("b", "2")
+                .add("a", "1");
+
+        assertThat(params.size()).isEqualTo(2);
+        assertThat(params.name(1)).isEqualTo("a");
+    }
+
+    @Test
+    public void parsesQueryWithRepeatedNames() {
+        final ParameterList params =
+                ParameterList.ofQuery(HttpUrl.parse("https://example.com/?id=1&id=2&flag"));
+
+        assertThat(normalized(params)).isEqualTo("id=1&id=2&flag=");
+    }
+
+    @Test
+    public void parsesFormAndReencodes() throws Exception {
+        final ParameterList params = ParameterList.ofForm(
+                new Buffer().writeUtf8("status=Hello+Ladies%7E%21&id=1&id=2"));
+
+        assertThat(normalized(params)).isEqualTo("status=Hello%20Ladies~%21&id=1&id=2");
+        assertThat(params.value(0)).isEqualTo("Hello Ladies~!");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void frozenListIsImmutable() {
+        new ParameterList().freeze().add("a", "b");
+    }
+
+    @Test
+    public void obtainReusesPooledList() {
+        final ParameterList first = ParameterList.obtain();
+        final ParameterList nested = ParameterList.obtain();
+        assertThat(nested).isNotSameAs(first);
+        nested.recycle();
+        first.add("a", "b").recycle();
+
+        final ParameterList again = ParameterList.obtain();
+        assertThat(again).isSameAs(first);
+        assertThat(again.size()).isEqualTo(0);
+        again.recycle();
+    }
+
+    private static String normalized(ParameterList params) {
+        final StringBuilder result = new StringBuilder();
+        for (int i = 0; i < params.size(); i++) {
+            if (i > 0) {
+                result.append('&');
+            }
+            result.append(params.encodedName(i).utf8()).append('=').append(params.encodedValue(i).utf8());
+        }
+
+        return result.toString();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.request;
+
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.contrib.oauth.OAuth;
+
+import org.junit.Test;
+
+import okio.ByteString;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueryAuthorizationStrategyTest {
+
+    @Test
+    public void appendsEncodedParamsToQuery() {
+        final OAuthRequest request = new OAuthRequest(new Request.Builder()
+                .url("https://example.com/photos?size=original&file=vacation%20pic.jpg")
+                .build());
+        request.oauth(OAuth.CONSUMER_KEY, "dpf43f3p2l4k3l03");
+        request.encodedOauth(OAuth.SIGNATURE, ByteString.encodeUtf8("tR3%2BTy81lMeYAr%2FFid0kMTYa%2FWM%3D"));
+
+        new QueryAuthorizationStrategy().applyTo(request);
+
+        assertThat(request.authorizedRequest().urlString()).isEqualTo("https://example.com/photos"
+                + "?size=original&file=vacation%20pic.jpg"
+                + "&oauth_consumer_key=dpf43f3p2l4k3l03"
+                + "&oauth_signature=tR3%2BTy81lMeYAr%2FFid0kMTYa%2FWM%3D");
+        assertThat(request.authorizedRequest().httpUrl().queryParameter(OAuth.SIGNATURE))
+                .isEqualTo("tR3+Ty81lMeYAr/Fid0kMTYa/WM=");
+    }
+}
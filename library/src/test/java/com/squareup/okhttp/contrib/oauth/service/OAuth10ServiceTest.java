@@ -25,18 +25,34 @@
 package com.squareup.okhttp.contrib.oauth.service;
 
 import com.squareup.okhttp.FormEncodingBuilder;
+import com.squareup.okhttp.MediaType;
 import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
 import com.squareup.okhttp.contrib.oauth.OAuth;
 import com.squareup.okhttp.contrib.oauth.OAuthConsumer;
 import com.squareup.okhttp.contrib.oauth.consumer.DefaultOAuthConsumer;
+import com.squareup.okhttp.contrib.oauth.request.FormBodyAuthorizationStrategy;
 import com.squareup.okhttp.contrib.oauth.request.OAuthRequest;
 import com.squareup.okhttp.contrib.oauth.signing.NonceGenerator;
+import com.squareup.okhttp.contrib.oauth.signing.OAuthCredentials;
+import com.squareup.okhttp.contrib.oauth.signing.SigningContext;
 import com.squareup.okhttp.contrib.oauth.signing.TimestampGenerator;
 import com.squareup.okhttp.contrib.oauth.token.DefaultToken;
+import com.squareup.okhttp.contrib.oauth.token.RotatingToken;
 import com.squareup.okhttp.contrib.oauth.token.Token;
 
 import org.junit.Test;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okio.Buffer;
+import okio.BufferedSink;
+
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -122,6 +138,285 @@ public class OAuth10ServiceTest {
     }
 
 
+    @Test
+    public void authorizeRequestWithRotatingToken() throws Exception {
+        final OAuthConsumer consumer = new DefaultOAuthConsumer(TestA.CONSUMER_KEY, TestA.CONSUMER_SECRET);
+        final OAuth10Service service = fixedService();
+        final String expected = authorizationOf(service, consumer,
+                new DefaultToken(TestA.TOKEN_VALUE, TestA.TOKEN_SECRET));
+
+        // Rotated right after the secret was read, before the value is
+        final RotatingToken token = new RotatingToken(TestA.TOKEN_VALUE, TestA.TOKEN_SECRET) {
+            @Override
+            public String secret() {
+                final String secret = super.secret();
+                rotate("rotated-token", "rotated-secret");
+                return secret;
+            }
+        };
+
+        assertThat(authorizationOf(service, consumer, token)).isEqualTo(expected);
+    }
+
+    @Test
+    public void authorizeRequestWhileRotating() throws Exception {
+        final OAuthConsumer consumer = new DefaultOAuthConsumer(TestA.CONSUMER_KEY, TestA.CONSUMER_SECRET);
+        final OAuth10Service service = fixedService();
+        final String first = authorizationOf(service, consumer,
+                new DefaultToken(TestA.TOKEN_VALUE, TestA.TOKEN_SECRET));
+        final String second = authorizationOf(service, consumer,
+                new DefaultToken(TestC.TOKEN_VALUE, TestC.TOKEN_SECRET));
+
+        final RotatingToken token = new RotatingToken(TestA.TOKEN_VALUE, TestA.TOKEN_SECRET);
+        final AtomicBoolean done = new AtomicBoolean();
+        final Thread rotator = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; !done.get(); i++) {
+                    if (i % 2 == 0) {
+                        token.rotate(TestC.TOKEN_VALUE, TestC.TOKEN_SECRET);
+                    } else {
+                        token.rotate(TestA.TOKEN_VALUE, TestA.TOKEN_SECRET);
+                    }
+                }
+            }
+        };
+        rotator.start();
+        try {
+            for (int i = 0; i < 2000; i++) {
+                assertThat(authorizationOf(service, consumer, token)).isIn(first, second);
+            }
+        } finally {
+            done.set(true);
+            rotator.join();
+        }
+    }
+
+    private static OAuth10Service fixedService() {
+        final OAuth10Service service = new OAuth10Service();
+        service.nonce = new NonceGenerator() {
+            @Override
+            public String create() {
+                return TestA.NONCE;
+            }
+        };
+        service.timestamp = new TimestampGenerator() {
+            @Override
+            public long create() {
+                return TestA.TIME;
+            }
+        };
+
+        return service;
+    }
+
+    private static String authorizationOf(OAuth10Service service, OAuthConsumer consumer, Token token)
+            throws Exception {
+        final OAuthRequest request = new OAuthRequest(new Request.Builder()
+                .url("https://api.twitter.com/1/statuses/home_timeline.json")
+                .build());
+
+        return service.authorizeRequest(request, consumer, token).authorizedRequest().header("Authorization");
+    }
+
+
+    /** https://dev.twitter.com/oauth/overview/creating-signatures */
+    @Test
+    public void authorizeRequestsWithSigningContext() throws Exception {
+        final OAuthConsumer consumer = new DefaultOAuthConsumer(TestA.CONSUMER_KEY, TestA.CONSUMER_SECRET);
+        final Token token = new DefaultToken(TestA.TOKEN_VALUE, TestA.TOKEN_SECRET);
+        final OAuth10Service service = new OAuth10Service();
+        service.nonce = new NonceGenerator() {
+            @Override
+            public String create() {
+                return TestA.NONCE;
+            }
+        };
+        service.timestamp = new TimestampGenerator() {
+            @Override
+            public long create() {
+                return TestA.TIME;
+            }
+        };
+
+        final SigningContext context = service.signingContext(consumer, token);
+        for (int i = 0; i < 3; i++) {
+            final OAuthRequest oAuthRequest = new OAuthRequest(new Request.Builder()
+                    .url("https://api.twitter.com/1/statuses/update.json?include_entities=true")
+                    .post(new FormEncodingBuilder()
+                            .add("status", "Hello Ladies + Gentlemen, a signed OAuth request!")
+                            .build())
+                    .build());
+
+            final OAuthRequest authorized = service.authorizeRequest(oAuthRequest, context);
+
+            assertThat(authorized.oauth().get("oauth_signature"))
+                    .isEqualTo("tnnArxj06cWHq44gCs1OSKk/jLY=");
+        }
+    }
+
+    @Test
+    public void authorizeRequestWithBodyHash() throws Exception {
+        final OAuthConsumer consumer = new DefaultOAuthConsumer(TestA.CONSUMER_KEY, TestA.CONSUMER_SECRET);
+        final OAuth10Service service = new OAuth10Service();
+
+        final OAuthRequest authorized = service.authorizeRequest(new OAuthRequest(new Request.Builder()
+                .url("https://example.com/upload")
+                .post(RequestBody.create(MediaType.parse("text/plain"), "Hello World!"))
+                .build()), consumer, null);
+
+        assertThat(authorized.oauth().get(OAuth.BODY_HASH)).isEqualTo("Lve95gjOVATpfV8EL5X4nxwjKHE=");
+        assertThat(authorized.authorizedRequest().header("Authorization"))
+                .contains("oauth_body_hash=\"Lve95gjOVATpfV8EL5X4nxwjKHE%3D\"");
+    }
+
+    @Test
+    public void authorizeFormRequestWithoutBodyHash() throws Exception {
+        final OAuthConsumer consumer = new DefaultOAuthConsumer(TestA.CONSUMER_KEY, TestA.CONSUMER_SECRET);
+        final OAuth10Service service = new OAuth10Service();
+        service.authorizationStrategy = new FormBodyAuthorizationStrategy();
+
+        final OAuthRequest authorized = service.authorizeRequest(new OAuthRequest(new Request.Builder()
+                .url("https://example.com/statuses/1")
+                .delete()
+                .build()), consumer, null);
+
+        final Buffer sent = new Buffer();
+        authorized.authorizedRequest().body().writeTo(sent);
+        assertThat(authorized.oauth()).doesNotContainKey(OAuth.BODY_HASH);
+        assertThat(sent.readUtf8()).startsWith("oauth_consumer_key=").doesNotContain(OAuth.BODY_HASH);
+    }
+
+    @Test
+    public void authorizeRequestReadsBodyOnce() throws Exception {
+        final OAuthConsumer consumer = new DefaultOAuthConsumer(TestA.CONSUMER_KEY, TestA.CONSUMER_SECRET);
+        final OAuth10Service service = new OAuth10Service();
+        final AtomicInteger writes = new AtomicInteger();
+        final RequestBody body = new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return MediaType.parse("text/plain");
+            }
+
+            @Override
+            public long contentLength() {
+                return 12;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                writes.incrementAndGet();
+                sink.writeUtf8("Hello World!");
+            }
+        };
+
+        final OAuthRequest authorized = service.authorizeRequest(new OAuthRequest(new Request.Builder()
+                .url("https://example.com/upload")
+                .post(body)
+                .build()), consumer, null);
+
+        final Buffer sent = new Buffer();
+        authorized.authorizedRequest().body().writeTo(sent);
+        assertThat(authorized.oauth().get(OAuth.BODY_HASH)).isEqualTo("Lve95gjOVATpfV8EL5X4nxwjKHE=");
+        assertThat(sent.readUtf8()).isEqualTo("Hello World!");
+        assertThat(writes.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void authorizeRequestDoesNotReadStreamedBody() throws Exception {
+        final OAuthConsumer consumer = new DefaultOAuthConsumer(TestA.CONSUMER_KEY, TestA.CONSUMER_SECRET);
+        final OAuth10Service service = new OAuth10Service();
+        final AtomicInteger writes = new AtomicInteger();
+        final RequestBody stream = new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return MediaType.parse("application/octet-stream");
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                writes.incrementAndGet();
+                sink.writeUtf8("one-shot");
+            }
+        };
+
+        final OAuthRequest authorized = service.authorizeRequest(new OAuthRequest(new Request.Builder()
+                .url("https://example.com/upload")
+                .post(stream)
+                .build()), consumer, null);
+
+        assertThat(authorized.oauth()).doesNotContainKey(OAuth.BODY_HASH);
+        assertThat(authorized.authorizedRequest().body()).isSameAs(stream);
+        assertThat(writes.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void authorizeRequestsInBatch() throws Exception {
+        final OAuthConsumer consumer = new DefaultOAuthConsumer(TestA.CONSUMER_KEY, TestA.CONSUMER_SECRET);
+        final OAuth10Service service = new OAuth10Service();
+        service.nonce = new NonceGenerator() {
+            @Override
+            public String create() {
+                return TestA.NONCE;
+            }
+        };
+        service.timestamp = new TimestampGenerator() {
+            @Override
+            public long create() {
+                return TestA.TIME;
+            }
+        };
+
+        final List<OAuthRequest> requests = new ArrayList<>();
+        final List<OAuthCredentials> credentials = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            requests.add(new OAuthRequest(new Request.Builder()
+                    .url("https://api.twitter.com/1/statuses/update.json?include_entities=true")
+                    .post(new FormEncodingBuilder()
+                            .add("status", "Hello Ladies + Gentlemen, a signed OAuth request!")
+                            .build())
+                    .tag(i)
+                    .build()));
+            credentials.add(new OAuthCredentials(consumer,
+                    new DefaultToken(TestA.TOKEN_VALUE, TestA.TOKEN_SECRET)));
+        }
+
+        final List<Request> authorized = service.authorizeRequests(requests, credentials);
+
+        assertThat(authorized).hasSize(100);
+        for (int i = 0; i < 100; i++) {
+            assertThat(authorized.get(i).tag()).isEqualTo(i);
+            assertThat(authorized.get(i).header("Authorization"))
+                    .contains("oauth_signature=\"tnnArxj06cWHq44gCs1OSKk%2FjLY%3D\"");
+        }
+    }
+
+    @Test
+    public void authorizeRequestsPassesUnsignedThrough() throws Exception {
+        final OAuthConsumer consumer = new DefaultOAuthConsumer(TestA.CONSUMER_KEY, TestA.CONSUMER_SECRET);
+        final OAuth10Service service = new OAuth10Service();
+
+        final List<OAuthRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            requests.add(new OAuthRequest(new Request.Builder()
+                    .url("https://api.twitter.com/1/statuses/home_timeline.json")
+                    .build()));
+        }
+        final List<OAuthCredentials> credentials = Arrays.asList(
+                new OAuthCredentials(consumer, null),
+                OAuthCredentials.NONE,
+                new OAuthCredentials(null, new DefaultToken(TestA.TOKEN_VALUE, TestA.TOKEN_SECRET)),
+                null);
+
+        final List<Request> authorized = service.authorizeRequests(requests, credentials);
+
+        assertThat(authorized.get(0).header("Authorization")).startsWith("OAuth ");
+        for (int i = 1; i < 4; i++) {
+            assertThat(authorized.get(i)).isSameAs(requests.get(i).originalRequest());
+        }
+    }
+
+
     /** https://dev.twitter.com/web/sign-in/implementing --> Step 1: Obtaining a request token */
     @Test
     public void authorizeRequestWithoutToken() throws Exception {
@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.contrib.oauth.request.CapturedBody;
+import com.squareup.okhttp.contrib.oauth.request.FileBody;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import okio.ByteString;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test data from..
+ *
+ * @link https://tools.ietf.org/id/draft-eaton-oauth-bodyhash-00.html
+ */
+public class BodyHashTest {
+    private static final MediaType TEXT = MediaType.parse("text/plain");
+    private static final String HELLO_SHA1 = "Lve95gjOVATpfV8EL5X4nxwjKHE%3D";
+
+    @Test
+    public void hashesStreamedBody() throws Exception {
+        assertThat(BodyHash.encodedHashOf(RequestBody.create(TEXT, "Hello World!"), "SHA-1").utf8())
+                .isEqualTo(HELLO_SHA1);
+    }
+
+    @Test
+    public void hashesCapturedBody() throws Exception {
+        final CapturedBody body = new CapturedBody(TEXT, ByteString.encodeUtf8("Hello World!"));
+
+        assertThat(BodyHash.encodedHashOf(body, "SHA-1").utf8()).isEqualTo(HELLO_SHA1);
+    }
+
+    @Test
+    public void hashesMappedFile() throws Exception {
+        final File file = File.createTempFile("body", ".txt");
+        try {
+            Files.write(file.toPath(), "Hello World!".getBytes("UTF-8"));
+
+            assertThat(BodyHash.encodedHashOf(new FileBody(TEXT, file), "SHA-1").utf8())
+                    .isEqualTo(HELLO_SHA1);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void hashesEmptyBody() throws Exception {
+        assertThat(BodyHash.encodedHashOf(null, "SHA-1").utf8())
+                .isEqualTo("2jmj7l5rSw0yVb%2FvlWAYkK%2FYBwk%3D");
+    }
+
+    @Test
+    public void picksAlgorithmOfSignatureMethod() {
+        assertThat(BodyHash.algorithmFor("HMAC-SHA1")).isEqualTo("SHA-1");
+        assertThat(BodyHash.algorithmFor("RSA-SHA256")).isEqualTo("SHA-256");
+        assertThat(BodyHash.algorithmFor("HMAC-SHA512")).isEqualTo("SHA-512");
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+import com.squareup.okhttp.contrib.oauth.encoder.PercentEncoder;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DefaultNonceGeneratorTest {
+
+    @Test
+    public void createsUrlSafeNonces() {
+        final NonceGenerator generator = new DefaultNonceGenerator();
+
+        for (int i = 0; i < 100; i++) {
+            final String nonce = generator.create();
+
+            assertThat(nonce).hasSize(32).matches("[A-Za-z0-9_-]+");
+            assertThat(PercentEncoder.encode(nonce)).isSameAs(nonce);
+        }
+    }
+
+    @Test
+    public void createsDistinctNoncesAcrossEntropyBlocks() {
+        final NonceGenerator generator = new DefaultNonceGenerator();
+        final Set<String> nonces = new HashSet<>();
+
+        // several refills of the per-thread entropy block
+        for (int i = 0; i < 1000; i++) {
+            nonces.add(generator.create());
+        }
+
+        assertThat(nonces).hasSize(1000);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test data from..
+ *
+ * @link https://dev.twitter.com/oauth/overview/creating-signatures
+ */
+public class HmacSignatureMethodTest {
+
+    private static final String CONSUMER_SECRET = "kAcSOqF21Fu85e7zjz7ZN2U4ZRhfV3WpwPAoE3Z7kBw";
+    private static final String TOKEN_SECRET = "LswwdoUaIvS8ltyTt5jkRh4J50vUPVVHtR2YPi5kE";
+    private static final String BASE_STRING = "POST&https%3A%2F%2Fapi.twitter.com%2F1%2Fstatuses%2Fupdate.json"
+            + "&include_entities%3Dtrue%26oauth_consumer_key%3Dxvz1evFS4wEEPTGEFPHBog"
+            + "%26oauth_nonce%3DkYjzVBB8Y0ZFabxSWbWovY3uYSQ2pTgmZeNu2VS4cg"
+            + "%26oauth_signature_method%3DHMAC-SHA1%26oauth_timestamp%3D1318622958"
+            + "%26oauth_token%3D370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb"
+            + "%26oauth_version%3D1.0%26status%3DHello%2520Ladies%2520%252B%2520Gentlemen"
+            + "%252C%2520a%2520signed%2520OAuth%2520request%2521";
+
+    @Test
+    public void hmacSha1() throws Exception {
+        final SignatureMethod method = new HmacSha1SignatureMethod();
+
+        assertThat(method.methodName()).isEqualTo("HMAC-SHA1");
+        assertThat(method.withKey(CONSUMER_SECRET, TOKEN_SECRET).signatureOf(BASE_STRING))
+                .isEqualTo("tnnArxj06cWHq44gCs1OSKk/jLY=");
+    }
+
+    @Test
+    public void hmacSha256() throws Exception {
+        final SignatureMethod method = new HmacSha256SignatureMethod();
+
+        assertThat(method.methodName()).isEqualTo("HMAC-SHA256");
+        assertThat(method.withKey(CONSUMER_SECRET, TOKEN_SECRET).signatureOf(BASE_STRING))
+                .isEqualTo("i+nW3DvAUWe8+hYVtoxTArQQRuPDVakw9OiA6OAantk=");
+    }
+
+    @Test
+    public void hmacSha512() throws Exception {
+        final SignatureMethod method = new HmacSha512SignatureMethod();
+
+        assertThat(method.methodName()).isEqualTo("HMAC-SHA512");
+        assertThat(method.withKey(CONSUMER_SECRET, TOKEN_SECRET).signatureOf(BASE_STRING))
+                .isEqualTo("cd+L2As3TZ4rWziv25571PDqrt1uqQw4ti2inRFarukqI6F/W4XuXZflozqXdLMHVGSdaaQ/cUQz1OkskkAMLw==");
+    }
+
+    @Test
+    public void keyedInstancesAreIndependent() throws Exception {
+        final SignatureMethod method = new HmacSha1SignatureMethod();
+        final SignatureMethod keyed = method.withKey(CONSUMER_SECRET, TOKEN_SECRET);
+        final SignatureMethod other = method.withKey("other", "");
+
+        assertThat(keyed.signatureOf(BASE_STRING)).isEqualTo("tnnArxj06cWHq44gCs1OSKk/jLY=");
+        assertThat(other.signatureOf(BASE_STRING)).isNotEqualTo("tnnArxj06cWHq44gCs1OSKk/jLY=");
+        assertThat(keyed.signatureOf(BASE_STRING)).isEqualTo("tnnArxj06cWHq44gCs1OSKk/jLY=");
+    }
+
+    @Test
+    public void keyedMacIsReused() throws Exception {
+        final SignatureMethod method = new HmacSha1SignatureMethod();
+
+        final HmacSignatureMethod first = (HmacSignatureMethod) method.withKey(CONSUMER_SECRET, TOKEN_SECRET);
+        final HmacSignatureMethod second = (HmacSignatureMethod) method.withKey(CONSUMER_SECRET, TOKEN_SECRET);
+        final HmacSignatureMethod other = (HmacSignatureMethod) method.withKey(CONSUMER_SECRET, "other");
+
+        assertThat(second.mac).isSameAs(first.mac);
+        assertThat(other.mac).isNotSameAs(first.mac);
+    }
+
+    @Test
+    public void keyedMacSignsConcurrently() throws Exception {
+        final SignatureMethod keyed = new HmacSha1SignatureMethod().withKey(CONSUMER_SECRET, TOKEN_SECRET);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        for (int j = 0; j < 500; j++) {
+                            if (!keyed.signatureOf(BASE_STRING).equals("tnnArxj06cWHq44gCs1OSKk/jLY=")) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = SigningException.class)
+    public void signingRequiresKey() throws Exception {
+        new HmacSha1SignatureMethod().signatureOf(BASE_STRING);
+    }
+}
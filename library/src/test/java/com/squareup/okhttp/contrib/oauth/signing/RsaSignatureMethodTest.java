@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+import com.squareup.okhttp.contrib.oauth.request.ParameterList;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.List;
+
+import okio.ByteString;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RsaSignatureMethodTest {
+
+    private static KeyPair keyPair;
+
+    @BeforeClass
+    public static void generateKeyPair() throws Exception {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+    }
+
+    @Test
+    public void rsaSha1() throws Exception {
+        final SignatureMethod method = new RsaSha1SignatureMethod(keyPair.getPrivate());
+
+        assertThat(method.methodName()).isEqualTo("RSA-SHA1");
+        assertThat(verify("SHA1withRSA", "GET&x&y", method.withKey("ignored", null).signatureOf("GET&x&y")))
+                .isTrue();
+    }
+
+    @Test
+    public void rsaSha256StreamsBaseString() throws Exception {
+        final SignatureMethod method = new RsaSha256SignatureMethod(keyPair.getPrivate());
+        final SignatureBaseString baseString = new SignatureBaseString(
+                "GET", "https://example.com/", new ParameterList().add("a", "b c"));
+
+        assertThat(method.methodName()).isEqualTo("RSA-SHA256");
+        assertThat(verify("SHA256withRSA", baseString.toString(), method.signatureOf(baseString)))
+                .isTrue();
+    }
+
+    @Test
+    public void parsesPkcs8AndPkcs1Pem() throws Exception {
+        final ByteString pkcs8 = ByteString.of(keyPair.getPrivate().getEncoded());
+        // the PKCS#8 encoding of a 2048 bit key has a 26 byte header in front of the PKCS#1 key
+        final ByteString pkcs1 = pkcs8.substring(26);
+
+        assertThat(RsaSignatureMethod.parsePrivateKey(pem("PRIVATE KEY", pkcs8)))
+                .isEqualTo(keyPair.getPrivate());
+        assertThat(RsaSignatureMethod.parsePrivateKey(pem("RSA PRIVATE KEY", pkcs1)))
+                .isEqualTo(keyPair.getPrivate());
+    }
+
+    @Test
+    public void signsBatchInOrder() throws Exception {
+        final RsaSignatureMethod method = new RsaSha1SignatureMethod(keyPair.getPrivate(), 2);
+        final List<SignatureBaseString> baseStrings = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            baseStrings.add(new SignatureBaseString("GET", "https://example.com/",
+                    new ParameterList().add("i", Integer.toString(i))));
+        }
+
+        final List<String> signatures = method.signaturesOf(baseStrings);
+
+        assertThat(signatures).hasSize(20);
+        for (int i = 0; i < 20; i++) {
+            assertThat(verify("SHA1withRSA", baseStrings.get(i).toString(), signatures.get(i))).isTrue();
+        }
+    }
+
+    private static boolean verify(String algorithm, String baseString, String signature) throws Exception {
+        final Signature verifier = Signature.getInstance(algorithm);
+        verifier.initVerify(keyPair.getPublic());
+        verifier.update(baseString.getBytes("UTF-8"));
+
+        return verifier.verify(ByteString.decodeBase64(signature).toByteArray());
+    }
+
+    private static String pem(String type, ByteString der) {
+        final StringBuilder pem = new StringBuilder("-----BEGIN " + type + "-----\n");
+        final String base64 = der.base64();
+        for (int i = 0; i < base64.length(); i += 64) {
+            pem.append(base64, i, Math.min(i + 64, base64.length())).append('\n');
+        }
+
+        return pem.append("-----END ").append(type).append("-----\n").toString();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+import com.squareup.okhttp.Connection;
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.Protocol;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import com.squareup.okhttp.contrib.oauth.consumer.DefaultOAuthConsumer;
+import com.squareup.okhttp.contrib.oauth.service.OAuth10Service;
+import com.squareup.okhttp.contrib.oauth.token.DefaultToken;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SigningInterceptorTest {
+    private final OAuthCredentials credentials = new OAuthCredentials(
+            new DefaultOAuthConsumer("key", "secret"), new DefaultToken("token", "token-secret"));
+
+    @Test
+    public void signsTaggedRequest() throws Exception {
+        final SigningInterceptor interceptor = new SigningInterceptor(new OAuth10Service());
+
+        final Request sent = proceed(interceptor, new Request.Builder()
+                .url("https://example.com/")
+                .tag(credentials)
+                .build());
+
+        assertThat(sent.header("Authorization"))
+                .startsWith("OAuth oauth_consumer_key=\"key\"")
+                .contains("oauth_token=\"token\"");
+    }
+
+    @Test
+    public void signsResolvedRequest() throws Exception {
+        final SigningInterceptor interceptor = new SigningInterceptor(new OAuth10Service(),
+                new CredentialsResolver() {
+                    @Override
+                    public OAuthCredentials credentialsFor(Request request) {
+                        return request.httpUrl().encodedPath().startsWith("/api") ? credentials : null;
+                    }
+                });
+
+        assertThat(proceed(interceptor, new Request.Builder().url("https://example.com/api").build())
+                .header("Authorization")).isNotNull();
+        assertThat(proceed(interceptor, new Request.Builder().url("https://example.com/static").build())
+                .header("Authorization")).isNull();
+    }
+
+    @Test
+    public void passesOptedOutRequest() throws Exception {
+        final SigningInterceptor interceptor = new SigningInterceptor(new OAuth10Service());
+        final Request request = new Request.Builder()
+                .url("https://example.com/")
+                .tag(OAuthCredentials.NONE)
+                .build();
+
+        assertThat(proceed(interceptor, request)).isSameAs(request);
+    }
+
+    @Test
+    public void reportsMetrics() throws Exception {
+        final SigningInterceptor interceptor = new SigningInterceptor(new OAuth10Service());
+        final long[] timings = new long[2];
+        interceptor.metrics(new SigningMetrics() {
+            @Override
+            public void signed(Request request, long queueDelayNanos, long timestampAgeMillis) {
+                timings[0] = queueDelayNanos;
+                timings[1] = timestampAgeMillis;
+            }
+        });
+
+        proceed(interceptor, new Request.Builder()
+                .url("https://example.com/")
+                .tag(credentials.stamped())
+                .build());
+
+        assertThat(timings[0]).isGreaterThan(0);
+        assertThat(timings[1]).isBetween(0L, 1999L);
+    }
+
+    @Test
+    public void reportsAgeWithoutSkew() throws Exception {
+        final SkewLearningTimestampGenerator timestamps = new SkewLearningTimestampGenerator();
+        timestamps.offsetMillis = 3600000;
+        final SigningInterceptor interceptor = new SigningInterceptor(new OAuth10Service() {
+            {
+                timestamp = timestamps;
+            }
+        });
+        final long[] age = new long[1];
+        interceptor.metrics(new SigningMetrics() {
+            @Override
+            public void signed(Request request, long queueDelayNanos, long timestampAgeMillis) {
+                age[0] = timestampAgeMillis;
+            }
+        });
+
+        proceed(interceptor, new Request.Builder()
+                .url("https://example.com/")
+                .tag(credentials)
+                .build());
+
+        assertThat(age[0]).isBetween(0L, 1999L);
+    }
+
+    @Test
+    public void derivesContextOnce() throws Exception {
+        final OAuth10Service service = new OAuth10Service();
+
+        assertThat(credentials.signingContext(service)).isSameAs(credentials.signingContext(service));
+        assertThat(credentials.stamped().signingContext(service)).isSameAs(credentials.signingContext(service));
+    }
+
+    private static Request proceed(Interceptor interceptor, final Request request) throws IOException {
+        final Request[] sent = new Request[1];
+        interceptor.intercept(new Interceptor.Chain() {
+            @Override
+            public Request request() {
+                return request;
+            }
+
+            @Override
+            public Response proceed(Request request) {
+                sent[0] = request;
+                return new Response.Builder()
+                        .request(request)
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(200)
+                        .build();
+            }
+
+            @Override
+            public Connection connection() {
+                return null;
+            }
+        });
+
+        return sent[0];
+    }
+}
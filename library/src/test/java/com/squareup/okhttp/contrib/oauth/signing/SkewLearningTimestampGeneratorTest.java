@@ -0,0 +1,98 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.Protocol;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import com.squareup.okhttp.ResponseBody;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SkewLearningTimestampGeneratorTest {
+    private static final long RECEIVED = 1318622958000L;
+    private final Request request = new Request.Builder().url("https://example.com/").build();
+    private final SkewLearningTimestampGenerator timestamps = new SkewLearningTimestampGenerator();
+
+    @Test
+    public void learnsOffsetFromDateHeader() {
+        assertThat(timestamps.learn(response(200, RECEIVED + 300000, "").build())).isTrue();
+        assertThat(timestamps.offsetMillis()).isEqualTo(300500);
+
+        // Sub-second differences are below the resolution of the Date header
+        assertThat(timestamps.learn(response(200, RECEIVED + 300000, "").build())).isFalse();
+        assertThat(timestamps.create() - System.currentTimeMillis() / 1000).isBetween(299L, 301L);
+    }
+
+    @Test
+    public void learnsAcceptableTimestamps() throws Exception {
+        final Response refused = response(401, RECEIVED,
+                "oauth_problem=timestamp_refused&oauth_acceptable_timestamps=1318622000-1318622200").build();
+
+        assertThat(timestamps.learnRefused(refused)).isTrue();
+        assertThat(timestamps.offsetMillis()).isEqualTo(1318622100000L - RECEIVED);
+    }
+
+    @Test
+    public void retriesRefusedTimestampOnce() throws Exception {
+        final Response refused = response(401, RECEIVED + 60000, "oauth_problem=timestamp_refused").build();
+
+        assertThat(timestamps.authenticator().authenticate(null, refused)).isSameAs(request);
+        assertThat(timestamps.offsetMillis()).isEqualTo(60500);
+
+        final Response refusedAgain = response(401, RECEIVED + 60000, "oauth_problem=timestamp_refused")
+                .priorResponse(response(401, RECEIVED, "").body(null).build())
+                .build();
+        assertThat(timestamps.authenticator().authenticate(null, refusedAgain)).isNull();
+    }
+
+    @Test
+    public void ignoresOtherProblems() throws Exception {
+        final Response rejected = response(401, RECEIVED, "oauth_problem=signature_invalid").build();
+
+        assertThat(timestamps.authenticator().authenticate(null, rejected)).isNull();
+    }
+
+    private Response.Builder response(int code, long serverMillis, String body) {
+        final SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .header("Date", format.format(new Date(serverMillis)))
+                .header("OkHttp-Received-Millis", Long.toString(RECEIVED))
+                .body(ResponseBody.create(MediaType.parse("text/plain"), body));
+    }
+}
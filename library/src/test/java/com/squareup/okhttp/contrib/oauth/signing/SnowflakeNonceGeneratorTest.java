@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.signing;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SnowflakeNonceGeneratorTest {
+
+    private static final TimestampGenerator FIXED_TIME = new TimestampGenerator() {
+        @Override
+        public long create() {
+            return 1318622958;
+        }
+    };
+
+    @Test
+    public void packsSecondNodeAndSequence() {
+        final NonceGenerator nonce =
+                new SnowflakeNonceGenerator(3, FIXED_TIME, new DefaultNonceGenerator(), 0xcafebabe);
+
+        assertThat(nonce.create()).isEqualTo("4e9896ee00c00000cafebabe");
+        assertThat(nonce.create()).isEqualTo("4e9896ee00c00001cafebabe");
+    }
+
+    @Test
+    public void instancesOfOneNodeCreateDistinctNonces() {
+        final NonceGenerator a = new SnowflakeNonceGenerator(1, FIXED_TIME);
+        final NonceGenerator b = new SnowflakeNonceGenerator(1, FIXED_TIME);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(a.create()).isNotEqualTo(b.create());
+        }
+    }
+
+    @Test
+    public void nodesCreateDistinctNonces() {
+        final NonceGenerator a = new SnowflakeNonceGenerator(1, FIXED_TIME);
+        final NonceGenerator b = new SnowflakeNonceGenerator(2, FIXED_TIME);
+
+        assertThat(a.create()).isNotEqualTo(b.create());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNodeIdOutOfRange() {
+        new SnowflakeNonceGenerator(SnowflakeNonceGenerator.MAX_NODE_ID + 1, FIXED_TIME);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.token;
+
+import com.squareup.okhttp.contrib.oauth.cache.CoarseClock;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InMemoryTokenStoreTest {
+
+    @Test
+    public void storesTokens() {
+        final InMemoryTokenStore store = new InMemoryTokenStore(100, 0, TimeUnit.SECONDS);
+        store.put("alice", new DefaultToken("370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb",
+                "LswwdoUaIvS8ltyTt5jkRh4J50vUPVVHtR2YPi5kE"));
+        store.put("bob", new DefaultToken("t\u00f6ken", null));
+
+        assertThat(store.get("alice").value()).isEqualTo("370773112-GmHxMAgYyLbNEtIKZeRNFsMKPR9EyMZeS9weJAEb");
+        assertThat(store.get("alice").secret()).isEqualTo("LswwdoUaIvS8ltyTt5jkRh4J50vUPVVHtR2YPi5kE");
+        assertThat(store.get("bob").value()).isEqualTo("t\u00f6ken");
+        assertThat(store.get("bob").secret()).isNull();
+        assertThat(store.get("carol")).isNull();
+        assertThat(store.size()).isEqualTo(2);
+
+        assertThat(store.remove("bob")).isTrue();
+        assertThat(store.remove("bob")).isFalse();
+        assertThat(store.hitCount()).isEqualTo(4);
+        assertThat(store.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void evictsBeyondMaxSize() {
+        final InMemoryTokenStore store = new InMemoryTokenStore(64, 0, TimeUnit.SECONDS, 4);
+        for (int i = 0; i < 1000; i++) {
+            store.put("user" + i, new DefaultToken("token" + i, "secret" + i));
+        }
+
+        assertThat(store.size()).isLessThanOrEqualTo(64);
+        assertThat(store.evictionCount()).isEqualTo(1000 - store.size());
+    }
+
+    @Test
+    public void evictsIdleTokens() throws Exception {
+        final InMemoryTokenStore store = new InMemoryTokenStore(100, 1, TimeUnit.MILLISECONDS);
+        store.put("alice", new DefaultToken("token", "secret"));
+        store.put("bob", new DefaultToken("token", "secret"));
+
+        Thread.sleep(4 * CoarseClock.TICK_MILLIS);
+
+        assertThat(store.get("alice")).isNull();
+        store.cleanUp();
+        assertThat(store.size()).isEqualTo(0);
+        assertThat(store.evictionCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.token;
+
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.contrib.oauth.consumer.DefaultOAuthConsumer;
+import com.squareup.okhttp.contrib.oauth.signing.TokenStoreResolver;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MappedTokenStoreTest {
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("tokens", ".log");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void keepsTokensAcrossRestarts() throws Exception {
+        final MappedTokenStore store = new MappedTokenStore(file);
+        store.put("alice", new DefaultToken("token-a", "secret-a"));
+        store.put("bob", new DefaultToken("token-b", null));
+        store.put("alice", new DefaultToken("token-a2", "secret-a2"));
+        store.put("carol", new DefaultToken("token-c", "secret-c"));
+        assertThat(store.remove("carol")).isTrue();
+        store.close();
+
+        final MappedTokenStore reopened = new MappedTokenStore(file);
+        assertThat(reopened.size()).isEqualTo(2);
+        assertThat(reopened.get("alice").value()).isEqualTo("token-a2");
+        assertThat(reopened.get("alice").secret()).isEqualTo("secret-a2");
+        assertThat(reopened.get("bob").secret()).isNull();
+        assertThat(reopened.get("carol")).isNull();
+        reopened.close();
+    }
+
+    @Test
+    public void discardsTornRecord() throws Exception {
+        final MappedTokenStore store = new MappedTokenStore(file);
+        store.put("alice", new DefaultToken("token-a", "secret-a"));
+        store.put("bob", new DefaultToken("token-b", "secret-b"));
+        store.close();
+
+        // Corrupt the last byte of bob's record
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long end = 8;
+            while (true) {
+                raf.seek(end + 4);
+                final int length = raf.readInt();
+                if (length == 0) {
+                    break;
+                }
+                end += 8 + length;
+            }
+            raf.seek(end - 1);
+            raf.write(0xff);
+        }
+
+        final MappedTokenStore reopened = new MappedTokenStore(file);
+        assertThat(reopened.get("alice").value()).isEqualTo("token-a");
+        assertThat(reopened.get("bob")).isNull();
+
+        reopened.put("bob", new DefaultToken("token-b2", "secret-b2"));
+        assertThat(reopened.get("bob").value()).isEqualTo("token-b2");
+        reopened.close();
+    }
+
+    @Test
+    public void growsAndCompacts() throws Exception {
+        final MappedTokenStore store = new MappedTokenStore(file);
+        for (int round = 0; round < 30; round++) {
+            for (int i = 0; i < 2000; i++) {
+                store.put("user" + i, new DefaultToken("token-" + round + "-" + i, "secret-" + i));
+            }
+        }
+        store.compact();
+
+        assertThat(store.size()).isEqualTo(2000);
+        assertThat(store.get("user7").value()).isEqualTo("token-29-7");
+        store.close();
+
+        final MappedTokenStore reopened = new MappedTokenStore(file);
+        assertThat(reopened.size()).isEqualTo(2000);
+        assertThat(reopened.get("user1999").value()).isEqualTo("token-29-1999");
+        reopened.close();
+    }
+
+    @Test
+    public void resolverCachesCredentialsOfTokensReadAgain() throws Exception {
+        final MappedTokenStore store = new MappedTokenStore(file);
+        store.put("alice", new DefaultToken("token-a", "secret-a"));
+        final TokenStoreResolver resolver = new TokenStoreResolver(
+                new DefaultOAuthConsumer("key", "secret"), store, new TokenStoreResolver.UserIdExtractor() {
+                    @Override
+                    public String userIdOf(Request request) {
+                        return "alice";
+                    }
+                });
+        final Request request = new Request.Builder().url("https://example.com/").build();
+
+        assertThat(store.get("alice")).isNotSameAs(store.get("alice")).isEqualTo(store.get("alice"));
+        assertThat(resolver.credentialsFor(request)).isSameAs(resolver.credentialsFor(request));
+
+        store.put("alice", new DefaultToken("token-a2", "secret-a2"));
+        assertThat(resolver.credentialsFor(request).token().value()).isEqualTo("token-a2");
+        store.close();
+    }
+}
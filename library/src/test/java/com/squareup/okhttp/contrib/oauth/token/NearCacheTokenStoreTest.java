@@ -0,0 +1,272 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 David Herges // https://github.com/dherges
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.squareup.okhttp.contrib.oauth.token;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NearCacheTokenStoreTest {
+
+    /** Stands in for the remote server, in process */
+    static class InProcessBackend implements RemoteTokenBackend {
+        final Map<String, Token> tokens = new HashMap<>();
+        final List<String> changes = new ArrayList<>();
+        final List<Listener> listeners = new ArrayList<>();
+        final List<Collection<String>> lookups = new ArrayList<>();
+        volatile CountDownLatch blockLookups;
+        volatile CountDownLatch lookupStarted;
+        volatile boolean brokenLookups;
+        boolean push = true;
+
+        @Override
+        public Map<String, Token> getAll(Collection<String> userIds) throws IOException {
+            if (brokenLookups) {
+                return null;
+            }
+            if (lookupStarted != null) {
+                lookupStarted.countDown();
+            }
+            if (blockLookups != null) {
+                try {
+                    blockLookups.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+
+            synchronized (this) {
+                lookups.add(new ArrayList<>(userIds));
+                final Map<String, Token> result = new HashMap<>();
+                for (String userId : userIds) {
+                    if (tokens.containsKey(userId)) {
+                        result.put(userId, tokens.get(userId));
+                    }
+                }
+                return result;
+            }
+        }
+
+        @Override
+        public void put(String userId, Token token) {
+            synchronized (this) {
+                tokens.put(userId, token);
+            }
+            changed(userId);
+        }
+
+        @Override
+        public void remove(String userId) {
+            synchronized (this) {
+                tokens.remove(userId);
+            }
+            changed(userId);
+        }
+
+        @Override
+        public synchronized Changes changesSince(long version) {
+            return new Changes(changes.size(), new ArrayList<>(changes.subList((int) version, changes.size())));
+        }
+
+        @Override
+        public synchronized void addListener(Listener listener) {
+            listeners.add(listener);
+        }
+
+        /** A change made by another node */
+        void changed(String userId) {
+            final List<Listener> notify;
+            synchronized (this) {
+                changes.add(userId);
+                notify = new ArrayList<>(listeners);
+            }
+            if (push) {
+                for (Listener listener : notify) {
+                    listener.invalidated(userId);
+                }
+            }
+        }
+    }
+
+    private final InProcessBackend backend = new InProcessBackend();
+    private final NearCacheTokenStore store =
+            new NearCacheTokenStore(backend, 100, 1, 1, TimeUnit.HOURS);
+
+    @Test
+    public void servesHitsLocally() {
+        backend.tokens.put("alice", new DefaultToken("token-a", "secret-a"));
+
+        assertThat(store.get("alice").value()).isEqualTo("token-a");
+        assertThat(store.get("alice").value()).isEqualTo("token-a");
+        assertThat(backend.lookups).hasSize(1);
+    }
+
+    @Test
+    public void cachesAbsentUsers() {
+        assertThat(store.get("nobody")).isNull();
+        assertThat(store.get("nobody")).isNull();
+        assertThat(backend.lookups).hasSize(1);
+    }
+
+    @Test
+    public void batchesConcurrentMisses() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            backend.tokens.put("user" + i, new DefaultToken("token" + i, "secret" + i));
+        }
+        backend.blockLookups = new CountDownLatch(1);
+
+        final List<Thread> threads = new ArrayList<>();
+        final Token[] results = new Token[20];
+        for (int i = 0; i < 20; i++) {
+            final int user = i;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    results[user] = store.get("user" + user);
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Thread.sleep(200);
+        backend.blockLookups.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(results[i].value()).isEqualTo("token" + i);
+        }
+        assertThat(backend.lookups.size()).isLessThan(20);
+    }
+
+    @Test
+    public void pushedRevocationInvalidates() {
+        backend.tokens.put("alice", new DefaultToken("token-a", "secret-a"));
+        assertThat(store.get("alice")).isNotNull();
+
+        backend.remove("alice");
+
+        assertThat(store.get("alice")).isNull();
+    }
+
+    @Test
+    public void pulledRevocationInvalidates() throws Exception {
+        backend.push = false;
+        backend.tokens.put("alice", new DefaultToken("token-a", "secret-a"));
+        assertThat(store.get("alice")).isNotNull();
+
+        backend.remove("alice");
+        assertThat(store.get("alice")).isNotNull();
+
+        assertThat(store.pollInvalidations()).isEqualTo(1);
+        assertThat(store.get("alice")).isNull();
+        assertThat(store.pollInvalidations()).isEqualTo(0);
+    }
+
+    @Test
+    public void writesThrough() {
+        store.put("bob", new DefaultToken("token-b", "secret-b"));
+
+        assertThat(backend.tokens.get("bob").value()).isEqualTo("token-b");
+        assertThat(store.get("bob").value()).isEqualTo("token-b");
+        assertThat(backend.lookups).isEmpty();
+    }
+
+    @Test
+    public void doesNotCacheTokenInvalidatedWhileLoading() throws Exception {
+        backend.tokens.put("alice", new DefaultToken("token-a", "secret-a"));
+        backend.lookupStarted = new CountDownLatch(1);
+        backend.blockLookups = new CountDownLatch(1);
+
+        final Token[] result = new Token[1];
+        final Thread reader = new Thread() {
+            @Override
+            public void run() {
+                result[0] = store.get("alice");
+            }
+        };
+        reader.start();
+        backend.lookupStarted.await();
+        backend.changed("alice");
+        backend.blockLookups.countDown();
+        reader.join();
+
+        assertThat(result[0].value()).isEqualTo("token-a");
+        assertThat(store.size()).isEqualTo(0);
+        backend.lookupStarted = null;
+        backend.blockLookups = null;
+        assertThat(store.get("alice").value()).isEqualTo("token-a");
+        assertThat(backend.lookups).hasSize(2);
+    }
+
+    @Test
+    public void failsWaitingThreadsWhenBackendFails() {
+        backend.brokenLookups = true;
+
+        try {
+            store.get("alice");
+            throw new AssertionError("Expected UncheckedIOException");
+        } catch (UncheckedIOException expected) {
+        }
+
+        backend.brokenLookups = false;
+        backend.tokens.put("alice", new DefaultToken("token-a", "secret-a"));
+        assertThat(store.get("alice").value()).isEqualTo("token-a");
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void boundsTheWaitForAnotherLoader() throws Exception {
+        final NearCacheTokenStore impatient =
+                new NearCacheTokenStore(backend, 100, 1000, 1000, 50, TimeUnit.MILLISECONDS);
+        backend.lookupStarted = new CountDownLatch(1);
+        backend.blockLookups = new CountDownLatch(1);
+        final Thread loader = new Thread() {
+            @Override
+            public void run() {
+                impatient.get("alice");
+            }
+        };
+        loader.start();
+        backend.lookupStarted.await();
+        try {
+            impatient.get("alice");
+        } finally {
+            backend.blockLookups.countDown();
+            loader.join();
+        }
+    }
+}